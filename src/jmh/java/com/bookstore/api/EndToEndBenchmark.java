@@ -0,0 +1,153 @@
+package com.bookstore.api;
+
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.UserRepository;
+import com.bookstore.api.security.JwtTokenProvider;
+import com.bookstore.api.service.BookImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Full request path through the security filter chain, controllers, caches and an embedded H2
+ * database seeded with a synthetic catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    private static final String[] WORDS = {
+            "shadow", "river", "empire", "garden", "winter", "silent", "crown", "glass", "ocean", "forest"
+    };
+    private static final String[] QUERIES = {"shadow", "gard", "winter crown", "author7", "ocean riv"};
+
+    @Param({"10000"})
+    private int books;
+
+    @Param({"true", "false"})
+    private boolean catalogCache;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String bearerToken;
+    private final Random random = new Random(42);
+    private int queryIndex;
+
+    @Setup
+    public void setUp() throws Exception {
+        String cacheSize = catalogCache ? "10000" : "0";
+        context = new SpringApplicationBuilder(BookstoreApiApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "management.server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        // The test profile turns the outbox poller off; order writes should pay for it here
+                        "app.outbox.poll-interval-ms=200",
+                        "logging.level.root=WARN",
+                        "app.catalog-cache.book-max-size=" + cacheSize,
+                        "app.catalog-cache.page-max-size=" + cacheSize)
+                .run();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .apply(springSecurity())
+                .build();
+
+        seedCatalog();
+        bearerToken = "Bearer " + customerToken();
+
+        // Fail fast rather than measuring error responses
+        expectStatus(searchBooks(), 200);
+        expectStatus(placeOrder(), 201);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult searchBooks() throws Exception {
+        String query = QUERIES[queryIndex++ % QUERIES.length];
+        return mockMvc.perform(get("/api/books").param("search", query)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult placeOrder() throws Exception {
+        String body = "{\"items\":[{\"bookId\":" + (1 + random.nextInt(books)) + ",\"quantity\":1}," +
+                "{\"bookId\":" + (1 + random.nextInt(books)) + ",\"quantity\":2}]}";
+        return mockMvc.perform(post("/api/orders")
+                        .header("Authorization", bearerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn();
+    }
+
+    private void seedCatalog() throws Exception {
+        StringBuilder csv = new StringBuilder("title,author,genre,isbn,price,stockQuantity\n");
+        for (int i = 0; i < books; i++) {
+            csv.append(WORDS[random.nextInt(WORDS.length)]).append(' ')
+                    .append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(i).append(',')
+                    .append("Author").append(i % 100).append(',')
+                    .append("Fiction,")
+                    .append("isbn-").append(i).append(',')
+                    .append("10.0,")
+                    .append("100000000\n");
+        }
+        context.getBean(BookImportService.class)
+                .importBooks(new BufferedReader(new StringReader(csv.toString())), BookImportService.Format.CSV);
+    }
+
+    private String customerToken() {
+        User user = new User();
+        user.setName("Benchmark Customer");
+        user.setEmail("benchmark@example.com");
+        user.setPassword(context.getBean(PasswordEncoder.class).encode("secret"));
+        user.setRole(User.Role.CUSTOMER);
+        context.getBean(UserRepository.class).save(user);
+
+        UserDetails principal = context.getBean(UserDetailsService.class).loadUserByUsername(user.getEmail());
+        return context.getBean(JwtTokenProvider.class).generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static void expectStatus(MvcResult result, int status) {
+        if (result.getResponse().getStatus() != status) {
+            throw new IllegalStateException("Expected " + status + " but got " + result.getResponse().getStatus());
+        }
+    }
+}
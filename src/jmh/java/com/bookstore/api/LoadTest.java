@@ -0,0 +1,234 @@
+package com.bookstore.api;
+
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.UserRepository;
+import com.bookstore.api.security.JwtTokenProvider;
+import com.bookstore.api.service.BookImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares platform and virtual request threads over real HTTP. For each mode the application is
+ * started on a random port, seeded with a synthetic catalog, and hit by many concurrent clients
+ * doing catalog reads and then order writes. Throughput and latency percentiles go to stdout and
+ * to target/load-test-result.json.
+ * <p>
+ * Run with {@code mvn -Pbenchmark -DskipTests test-compile exec:exec@load-test}. Options are passed
+ * as {@code -Dload.args="--clients=400 --seconds=30"}; any other {@code --key=value} is handed to
+ * Spring, e.g. a MySQL {@code --spring.datasource.url} for realistic I/O waits instead of H2.
+ */
+public final class LoadTest {
+
+    private static final String[] WORDS = {
+            "shadow", "river", "empire", "garden", "winter", "silent", "crown", "glass", "ocean", "forest"
+    };
+
+    private final int clients;
+    private final int seconds;
+    private final int warmupSeconds;
+    private final int books;
+    private final int tomcatThreads;
+    private final List<String> springArgs;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private LoadTest(Map<String, String> options, List<String> springArgs) {
+        this.clients = Integer.parseInt(options.getOrDefault("clients", "400"));
+        this.seconds = Integer.parseInt(options.getOrDefault("seconds", "20"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup-seconds", "10"));
+        this.books = Integer.parseInt(options.getOrDefault("books", "10000"));
+        this.tomcatThreads = Integer.parseInt(options.getOrDefault("tomcat-threads", "200"));
+        this.springArgs = springArgs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Devtools would relaunch the app in a restart class loader on the main thread
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        // Maven passes -Dload.args as a single argument
+        for (String arg : String.join(" ", args).trim().split("\\s+")) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length == 2 && Arrays.asList("clients", "seconds", "warmup-seconds", "books", "tomcat-threads")
+                    .contains(option[0])) {
+                options.put(option[0], option[1]);
+            } else if (!arg.isBlank()) {
+                springArgs.add(arg);
+            }
+        }
+        new LoadTest(options, springArgs).run();
+    }
+
+    private void run() throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            String mode = virtualThreads ? "virtual" : "platform";
+            try (ConfigurableApplicationContext context = start(mode, virtualThreads)) {
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                seedCatalog(context);
+                String token = "Bearer " + customerToken(context);
+
+                results.add(measure(mode, "catalog-read", () -> HttpRequest.newBuilder(URI.create(
+                        baseUrl + "/api/books?search=" + WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)]
+                                + "&page=" + ThreadLocalRandom.current().nextInt(20))).GET().build()));
+                results.add(measure(mode, "order-write", () -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders"))
+                        .header("Authorization", token)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"items\":[{\"bookId\":"
+                                + (1 + ThreadLocalRandom.current().nextInt(books)) + ",\"quantity\":1}]}"))
+                        .build()));
+            }
+        }
+
+        System.out.printf("%n%-9s %-13s %12s %10s %10s %10s %8s%n",
+                "mode", "scenario", "req/s", "p50 (ms)", "p99 (ms)", "max (ms)", "errors");
+        for (Map<String, Object> result : results) {
+            System.out.printf("%-9s %-13s %12.1f %10.2f %10.2f %10.2f %8d%n", result.get("mode"), result.get("scenario"),
+                    result.get("throughput"), result.get("p50Millis"), result.get("p99Millis"),
+                    result.get("maxMillis"), result.get("errors"));
+        }
+        File output = new File("target/load-test-result.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, results);
+        System.out.println("Results written to " + output.getAbsolutePath());
+        System.exit(0);
+    }
+
+    private ConfigurableApplicationContext start(String mode, boolean virtualThreads) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + tomcatThreads,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                // The test profile turns the outbox poller off; order writes should pay for it here
+                "--app.outbox.poll-interval-ms=200",
+                "--logging.level.root=WARN"));
+        args.addAll(springArgs);
+        return new SpringApplicationBuilder(BookstoreApiApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    private Map<String, Object> measure(String mode, String scenario, RequestFactory requests) throws Exception {
+        run(requests, warmupSeconds);
+        List<long[]> perClient = run(requests, seconds);
+
+        long[] latencies = perClient.stream().flatMapToLong(client -> Arrays.stream(client, 1, client.length)).sorted().toArray();
+        long errors = perClient.stream().mapToLong(client -> client[0]).sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        result.put("scenario", scenario);
+        result.put("clients", clients);
+        result.put("seconds", seconds);
+        result.put("requests", latencies.length);
+        result.put("errors", errors);
+        result.put("throughput", latencies.length / (double) seconds);
+        result.put("p50Millis", percentile(latencies, 0.50));
+        result.put("p99Millis", percentile(latencies, 0.99));
+        result.put("maxMillis", latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1e6);
+        return result;
+    }
+
+    // Each client returns its error count followed by the latency of every successful request
+    private List<long[]> run(RequestFactory requests, int durationSeconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    long errors = 0;
+                    List<Long> latencies = new ArrayList<>();
+                    while (System.nanoTime() < deadline) {
+                        long started = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(requests.create(), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors++;
+                                continue;
+                            }
+                            latencies.add(System.nanoTime() - started);
+                        } catch (Exception ex) {
+                            errors++;
+                        }
+                    }
+                    long[] result = new long[latencies.size() + 1];
+                    result[0] = errors;
+                    for (int j = 0; j < latencies.size(); j++) {
+                        result[j + 1] = latencies.get(j);
+                    }
+                    return result;
+                }));
+            }
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+
+    private void seedCatalog(ConfigurableApplicationContext context) throws Exception {
+        StringBuilder csv = new StringBuilder("title,author,genre,isbn,price,stockQuantity\n");
+        for (int i = 0; i < books; i++) {
+            csv.append(WORDS[i % WORDS.length]).append(' ').append(WORDS[(i / WORDS.length) % WORDS.length])
+                    .append(' ').append(i).append(",Author").append(i % 100).append(",Fiction,isbn-").append(i)
+                    .append(",10.0,100000000\n");
+        }
+        context.getBean(BookImportService.class)
+                .importBooks(new BufferedReader(new StringReader(csv.toString())), BookImportService.Format.CSV);
+    }
+
+    private String customerToken(ConfigurableApplicationContext context) {
+        User user = new User();
+        user.setName("Load Test");
+        user.setEmail("load-test@example.com");
+        user.setPassword(context.getBean(PasswordEncoder.class).encode("secret"));
+        user.setRole(User.Role.CUSTOMER);
+        context.getBean(UserRepository.class).save(user);
+
+        UserDetails principal = context.getBean(UserDetailsService.class).loadUserByUsername(user.getEmail());
+        return context.getBean(JwtTokenProvider.class).generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest create();
+    }
+}
@@ -0,0 +1,171 @@
+package com.bookstore.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching a JVM on the packaged application to its first successful
+ * response, for the default configuration and for the prod profile with and without AOT and the
+ * CDS archive. Each mode is started several times on a fresh port and the first request is
+ * repeated until it returns 200; the process is then stopped. Results go to stdout and to
+ * target/startup-result.json.
+ * <p>
+ * Build the startup artifacts first with {@code mvn -Pstartup -DskipTests package}, then run
+ * {@code mvn -Pbenchmark -DskipTests test-compile exec:exec@startup-benchmark
+ * -Dstartup.args="--runs=5 --spring.datasource.url=jdbc:mysql://..."}. Any {@code --key=value}
+ * that is not an option here is handed to the application, typically the datasource to use.
+ */
+public final class StartupBenchmark {
+
+    private static final List<String> OPTIONS = List.of("runs", "jar", "archive", "path", "timeout-seconds");
+
+    private record Mode(String name, List<String> jvmArgs, List<String> appArgs) {
+    }
+
+    private final int runs;
+    private final File jar;
+    private final File archive;
+    private final String path;
+    private final int timeoutSeconds;
+    private final List<String> springArgs;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private StartupBenchmark(Map<String, String> options, List<String> springArgs) {
+        this.runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        this.jar = new File(options.getOrDefault("jar", "target/startup/bookstore-api-0.0.1-SNAPSHOT.jar"));
+        this.archive = new File(options.getOrDefault("archive", "target/startup/application.jsa"));
+        this.path = options.getOrDefault("path", "/api/books?size=1");
+        this.timeoutSeconds = Integer.parseInt(options.getOrDefault("timeout-seconds", "120"));
+        this.springArgs = springArgs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        // Maven passes -Dstartup.args as a single argument
+        for (String arg : String.join(" ", args).trim().split("\\s+")) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length == 2 && OPTIONS.contains(option[0])) {
+                options.put(option[0], option[1]);
+            } else if (!arg.isBlank()) {
+                springArgs.add(arg);
+            }
+        }
+        new StartupBenchmark(options, springArgs).run();
+    }
+
+    private void run() throws Exception {
+        if (!jar.isFile() || !archive.isFile()) {
+            throw new IllegalStateException("Missing " + jar + " or " + archive + ", build them with mvn -Pstartup -DskipTests package");
+        }
+        List<Mode> modes = List.of(
+                new Mode("default", List.of(), List.of()),
+                new Mode("prod", List.of(), List.of("--spring.profiles.active=prod")),
+                new Mode("prod-aot", List.of("-Dspring.aot.enabled=true"), List.of("--spring.profiles.active=prod")),
+                new Mode("prod-aot-cds", List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive.getAbsolutePath()),
+                        List.of("--spring.profiles.active=prod")));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Mode mode : modes) {
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = measure(mode, run);
+            }
+            Arrays.sort(millis);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("mode", mode.name());
+            result.put("runs", runs);
+            result.put("minMillis", millis[0]);
+            result.put("medianMillis", millis[runs / 2]);
+            result.put("maxMillis", millis[runs - 1]);
+            results.add(result);
+        }
+
+        System.out.printf("%n%-14s %12s %12s %12s%n", "mode", "min (ms)", "median (ms)", "max (ms)");
+        for (Map<String, Object> result : results) {
+            System.out.printf("%-14s %12d %12d %12d%n", result.get("mode"), result.get("minMillis"),
+                    result.get("medianMillis"), result.get("maxMillis"));
+        }
+        File output = new File("target/startup-result.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, results);
+        System.out.println("Results written to " + output.getAbsolutePath());
+    }
+
+    // Milliseconds from starting the JVM process to the first 200 response on the path
+    private long measure(Mode mode, int run) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(javaExecutable()));
+        command.addAll(mode.jvmArgs());
+        command.addAll(List.of("-jar", jar.getAbsolutePath(), "--server.port=" + port,
+                "--management.server.port=0"));
+        command.addAll(mode.appArgs());
+        command.addAll(springArgs);
+
+        File log = new File("target/startup-" + mode.name() + "-" + run + ".log");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .GET()
+                .build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            long deadline = started + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode.name() + " exited with " + process.exitValue() + ", see " + log);
+                }
+                if (served(request)) {
+                    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    System.out.printf("%-14s run %d: %d ms%n", mode.name(), run + 1, millis);
+                    return millis;
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(mode.name() + " did not answer within " + timeoutSeconds + " s, see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private boolean served(HttpRequest request) throws InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException ex) {
+            // Not listening yet
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // The archive only matches the JVM that recorded it, so use the one running this benchmark
+    private static String javaExecutable() {
+        return ProcessHandle.current().info().command().orElse("java");
+    }
+}
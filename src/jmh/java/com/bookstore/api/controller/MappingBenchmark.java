@@ -0,0 +1,106 @@
+package com.bookstore.api.controller;
+
+import com.bookstore.api.dto.BookResponse;
+import com.bookstore.api.dto.BookSearchResponse;
+import com.bookstore.api.dto.OrderResponse;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.OrderItem;
+import com.bookstore.api.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping done by the controllers for every response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"1", "10"})
+    private int orderItems;
+
+    private BookController bookController;
+    private OrderController orderController;
+    private Book book;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        // The mappers only read their argument, so the controllers need no collaborators
+        bookController = new BookController(null, null, null, null, null, null, null);
+        orderController = new OrderController(null, null, null, null, null);
+        book = book(1L);
+
+        User user = new User();
+        user.setId(1L);
+        user.setName("Customer");
+        user.setEmail("customer@example.com");
+
+        order = new Order();
+        order.setId(1L);
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < orderItems; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setBook(book((long) i));
+            item.setBookTitle(item.getBook().getTitle());
+            item.setBookIsbn(item.getBook().getIsbn());
+            item.setUnitPrice(item.getBook().getPrice());
+            item.setQuantity(2);
+            item.setPrice(item.getUnitPrice().times(2));
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        order.setTotalAmount(items.stream().map(OrderItem::getPrice).reduce(Money.ZERO, Money::plus));
+    }
+
+    @Benchmark
+    public BookResponse toBookResponse() {
+        return bookController.toBookResponse(book);
+    }
+
+    @Benchmark
+    public BookSearchResponse toSearchResponse() {
+        return bookController.toSearchResponse(book);
+    }
+
+    @Benchmark
+    public OrderResponse convertToOrderResponse() {
+        return orderController.convertToOrderResponse(order);
+    }
+
+    private static Book book(Long id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("The Left Hand of Darkness " + id);
+        book.setAuthor("Ursula K. Le Guin");
+        book.setGenre("Science Fiction");
+        book.setIsbn("978-0-441-47812-" + id);
+        book.setPrice(Money.of("9.99"));
+        book.setDescription("A lone human ambassador is sent to Winter, an alien world without gender.");
+        book.setStockQuantity(100);
+        return book;
+    }
+}
@@ -0,0 +1,75 @@
+package com.bookstore.api.controller;
+
+import com.bookstore.api.dto.BookSearchResponse;
+import com.bookstore.api.dto.CursorPage;
+import com.bookstore.api.model.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the listing responses, offset pages versus cursor pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<BookSearchResponse> page;
+    private CursorPage<BookSearchResponse> cursorPage;
+
+    @Setup
+    public void setUp() {
+        // Same defaults Spring Boot applies to the MVC object mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<BookSearchResponse> books = new ArrayList<>();
+        for (long id = 1; id <= pageSize; id++) {
+            BookSearchResponse book = new BookSearchResponse();
+            book.setId(id);
+            book.setTitle("The Dispossessed " + id);
+            book.setAuthor("Ursula K. Le Guin");
+            book.setGenre("Science Fiction");
+            book.setPrice(Money.of("12.50"));
+            books.add(book);
+        }
+        page = new PageImpl<>(books, PageRequest.of(3, pageSize, Sort.by("title")), 10_000);
+        cursorPage = new CursorPage<>(books, pageSize, "MTAwOlRoZSBEaXNwb3NzZXNzZWQ");
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeCursorPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cursorPage);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bookstore.api.pricing;
+
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.PromotionRule;
+import com.bookstore.api.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices carts of hundreds of lines against rule sets of thousands of promotions, and measures
+ * compiling a rule set, which is what a hot reload costs before the swap. Rules are spread over
+ * 50 genres with a mix of percentage discounts, buy-x-get-y deals and tier discounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingEngineBenchmark {
+
+    private static final int GENRES = 50;
+
+    @Param({"100", "1000", "10000"})
+    public int rules;
+
+    @Param({"100", "500"})
+    public int lines;
+
+    private PricingEngine engine;
+    private List<PromotionRule> ruleSet;
+    private List<PricingEngine.CartLine> cart;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ruleSet = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            PromotionRule rule = new PromotionRule();
+            rule.setId((long) i + 1);
+            rule.setName("promotion-" + i);
+            switch (i % 10) {
+                case 0 -> {
+                    rule.setType(PromotionRule.Type.TIER_DISCOUNT);
+                    rule.setTier(User.Tier.values()[random.nextInt(User.Tier.values().length)]);
+                    rule.setPercentOff(1 + random.nextInt(15));
+                }
+                case 1, 2, 3 -> {
+                    rule.setType(PromotionRule.Type.BUY_X_GET_Y);
+                    rule.setGenre(genre(random));
+                    rule.setBuyQuantity(1 + random.nextInt(5));
+                    rule.setFreeQuantity(1 + random.nextInt(3));
+                }
+                default -> {
+                    rule.setType(PromotionRule.Type.GENRE_DISCOUNT);
+                    // A few catch-all rules, which every genre has to consider
+                    rule.setGenre(random.nextInt(100) == 0 ? null : genre(random));
+                    rule.setPercentOff(1 + random.nextInt(40));
+                }
+            }
+            ruleSet.add(rule);
+        }
+        engine = new PricingEngine(null, null);
+        engine.load(ruleSet, rules);
+
+        cart = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            Book book = new Book();
+            book.setId((long) i);
+            // Some genres have no rules of their own
+            book.setGenre("genre-" + random.nextInt(GENRES + 10));
+            book.setPrice(Money.ofCents(499 + random.nextInt(5000)));
+            cart.add(new PricingEngine.CartLine(book, 1 + random.nextInt(6)));
+        }
+    }
+
+    @Benchmark
+    public PricingEngine.Quote quote() {
+        return engine.quote(User.Tier.GOLD, cart);
+    }
+
+    @Benchmark
+    public RuleSet compile() {
+        return RuleSet.compile(ruleSet, rules);
+    }
+
+    private static String genre(Random random) {
+        return "genre-" + random.nextInt(GENRES);
+    }
+}
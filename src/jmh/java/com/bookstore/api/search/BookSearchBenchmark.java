@@ -0,0 +1,109 @@
+package com.bookstore.api.search;
+
+import com.bookstore.api.BookstoreApiApplication;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The LIKE query the catalog search used to run against the inverted index that replaced it, on
+ * synthetic catalogs of 10k, 100k and 1M books in an embedded H2 database. Each invocation takes
+ * the next of a fixed set of queries, from common words and prefixes to an author and a query
+ * nothing matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// The million-book catalog and its index need more than a small machine's default heap
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BookSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "shadow", "river", "empire", "garden", "winter", "silent", "crown", "glass", "ocean", "forest",
+            "memory", "stone", "fire", "night", "golden", "secret", "storm", "wolf", "city", "dream"
+    };
+    private static final String[] QUERIES = {"shadow", "gold", "wint riv", "smith", "storm crown", "zzz"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int books;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private BookSearchIndex index;
+    private int queryIndex;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApiApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "management.server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:search-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.root=WARN")
+                .run();
+        bookRepository = context.getBean(BookRepository.class);
+        index = context.getBean(BookSearchIndex.class);
+
+        insertBooks(context.getBean(JdbcTemplate.class));
+        index.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> likeQuery() {
+        String query = QUERIES[queryIndex++ % QUERIES.length];
+        return bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(
+                query, query, PageRequest.of(0, 10, Sort.by("title")));
+    }
+
+    @Benchmark
+    public List<Book> index() {
+        String query = QUERIES[queryIndex++ % QUERIES.length];
+        return bookRepository.findAllById(index.search(query, 0, 10).ids());
+    }
+
+    private void insertBooks(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < books; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            String author = "Author" + random.nextInt(books / 10 + 1) + (i % 50 == 0 ? " Smith" : "");
+            batch.add(new Object[]{title, author, "Fiction", "isbn-" + i, 10.0, 5});
+            if (batch.size() == 5000 || i == books - 1) {
+                jdbcTemplate.batchUpdate("insert into books (title, author, genre, isbn, price, stock_quantity) " +
+                        "values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
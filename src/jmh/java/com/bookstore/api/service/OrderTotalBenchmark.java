@@ -0,0 +1,99 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.OrderItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding up an order's lines at list price, before and after money moved from boxed
+ * {@code Double} to cents. {@code boxedDouble} replays the old loop on lines holding {@code Double}
+ * prices; {@code cents} sums cents on real {@link OrderItem}s. Promotions are measured separately
+ * by {@code PricingEngineBenchmark}. Run with {@code -prof gc} to compare allocations as well as
+ * time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int lines;
+
+    private List<Book> books;
+    private List<DoubleLine> doubleLines;
+    private List<OrderItem> items;
+    private int[] quantities;
+
+    // Order line as it was before, with boxed floating point prices and the book's price alongside
+    private static final class DoubleLine {
+        Double bookPrice;
+        Double unitPrice;
+        Double price;
+    }
+
+    @Setup
+    public void setUp() {
+        books = new ArrayList<>();
+        doubleLines = new ArrayList<>();
+        items = new ArrayList<>();
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            Book book = new Book();
+            book.setId((long) i);
+            book.setPrice(Money.ofCents(999 + 250L * (i % 8)));
+            books.add(book);
+            quantities[i] = 1 + i % 3;
+            DoubleLine line = new DoubleLine();
+            line.bookPrice = book.getPrice().toBigDecimal().doubleValue();
+            doubleLines.add(line);
+            OrderItem item = new OrderItem();
+            item.setBook(book);
+            item.setQuantity(quantities[i]);
+            items.add(item);
+        }
+    }
+
+    @Benchmark
+    public Double boxedDouble() {
+        Double totalAmount = 0.0;
+        for (int i = 0; i < lines; i++) {
+            DoubleLine line = doubleLines.get(i);
+            line.unitPrice = line.bookPrice;
+            line.price = line.bookPrice * quantities[i];
+            totalAmount += line.price;
+        }
+        return totalAmount;
+    }
+
+    @Benchmark
+    public Money cents() {
+        long totalCents = 0;
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = items.get(i);
+            Book book = books.get(i);
+            item.setUnitPrice(book.getPrice());
+            long lineCents = Math.multiplyExact(book.getPrice().cents(), quantities[i]);
+            item.setPrice(Money.ofCents(lineCents));
+            totalCents = Math.addExact(totalCents, lineCents);
+        }
+        return Money.ofCents(totalCents);
+    }
+}
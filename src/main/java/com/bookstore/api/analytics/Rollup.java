@@ -0,0 +1,92 @@
+package com.bookstore.api.analytics;
+
+import com.bookstore.api.event.OrderChangedEvent;
+import com.bookstore.api.model.Order;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sales totals keyed by book, genre, order date and status. Used both for deltas waiting to be
+ * flushed and for the totals recomputed by a rebuild.
+ */
+final class Rollup {
+
+    final ConcurrentMap<Long, Totals> books = new ConcurrentHashMap<>();
+    final ConcurrentMap<String, Totals> genres = new ConcurrentHashMap<>();
+    final ConcurrentMap<LocalDate, Totals> days = new ConcurrentHashMap<>();
+    final ConcurrentMap<Order.OrderStatus, Long> statuses = new ConcurrentHashMap<>();
+
+    void apply(OrderChangedEvent event) {
+        if (event.previousStatus() == event.status()) {
+            return;
+        }
+        if (event.previousStatus() != null) {
+            statuses.merge(event.previousStatus(), -1L, Long::sum);
+        }
+        statuses.merge(event.status(), 1L, Long::sum);
+
+        int sign = event.salesSign();
+        if (sign == 0) {
+            return;
+        }
+        // An order counts once per book and genre even when it lists a book on several lines
+        Map<Long, Totals> byBook = new HashMap<>();
+        Map<String, Totals> byGenre = new HashMap<>();
+        Totals order = new Totals(1, 0, 0);
+        for (OrderChangedEvent.Line line : event.lines()) {
+            Totals amount = new Totals(0, line.quantity(), line.revenue().cents());
+            byBook.merge(line.bookId(), amount, Totals::plus);
+            byGenre.merge(line.genre(), amount, Totals::plus);
+            order = order.plus(amount);
+        }
+        byBook.forEach((bookId, totals) -> books.merge(bookId, onePerOrder(totals, sign), Totals::plus));
+        byGenre.forEach((genre, totals) -> genres.merge(genre, onePerOrder(totals, sign), Totals::plus));
+        days.merge(event.orderDate(), order.times(sign), Totals::plus);
+    }
+
+    void addAll(Rollup other) {
+        other.books.forEach((key, totals) -> books.merge(key, totals, Totals::plus));
+        other.genres.forEach((key, totals) -> genres.merge(key, totals, Totals::plus));
+        other.days.forEach((key, totals) -> days.merge(key, totals, Totals::plus));
+        other.statuses.forEach((key, count) -> statuses.merge(key, count, Long::sum));
+    }
+
+    /**
+     * Moves everything into a new rollup. Entries are removed one at a time, so deltas added
+     * concurrently end up either in the result or in this rollup, never lost or doubled.
+     */
+    Rollup drain() {
+        Rollup drained = new Rollup();
+        moveAll(books, drained.books);
+        moveAll(genres, drained.genres);
+        moveAll(days, drained.days);
+        for (Order.OrderStatus status : statuses.keySet()) {
+            Long count = statuses.remove(status);
+            if (count != null) {
+                drained.statuses.put(status, count);
+            }
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return books.isEmpty() && genres.isEmpty() && days.isEmpty() && statuses.isEmpty();
+    }
+
+    private static Totals onePerOrder(Totals totals, int sign) {
+        return new Totals(1, totals.units(), totals.revenueCents()).times(sign);
+    }
+
+    private static <K> void moveAll(ConcurrentMap<K, Totals> from, ConcurrentMap<K, Totals> to) {
+        for (K key : from.keySet()) {
+            Totals totals = from.remove(key);
+            if (totals != null) {
+                to.put(key, totals);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.bookstore.api.analytics;
+
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Recomputes the sales rollups from the orders table. Orders are split into id ranges that are
+ * aggregated by the database in parallel and merged in memory.
+ */
+@Component
+class SalesHistoryScanner {
+
+    private static final String BOOKS_SQL = "select oi.book_id, count(distinct o.id), sum(oi.quantity), sum(oi.price) " +
+            "from orders o join order_items oi on oi.order_id = o.id " +
+            "where o.id between ? and ? and o.status <> 'CANCELLED' group by oi.book_id";
+    private static final String GENRES_SQL = "select b.genre, count(distinct o.id), sum(oi.quantity), sum(oi.price) " +
+            "from orders o join order_items oi on oi.order_id = o.id join books b on b.id = oi.book_id " +
+            "where o.id between ? and ? and o.status <> 'CANCELLED' group by b.genre";
+    private static final String DAYS_SQL = "select cast(o.order_date as date), count(distinct o.id), sum(oi.quantity), " +
+            "sum(oi.price) from orders o join order_items oi on oi.order_id = o.id " +
+            "where o.id between ? and ? and o.status <> 'CANCELLED' group by cast(o.order_date as date)";
+    private static final String STATUSES_SQL = "select status, count(*) from orders where id between ? and ? group by status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int threads;
+
+    SalesHistoryScanner(JdbcTemplate jdbcTemplate,
+                        @Value("${app.analytics.rebuild.batch-size:10000}") int batchSize,
+                        @Value("${app.analytics.rebuild.threads:4}") int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.threads = threads;
+    }
+
+    record Result(Rollup rollup, int batches) {
+    }
+
+    /**
+     * Scans orders up to the highest id present when the scan starts; later orders are left to
+     * the incremental updates.
+     */
+    Result scan() {
+        Map<String, Object> range = jdbcTemplate.queryForMap("select min(id) as lo, max(id) as hi from orders");
+        Rollup rollup = new Rollup();
+        if (range.get("hi") == null) {
+            return new Result(rollup, 0);
+        }
+        long lo = ((Number) range.get("lo")).longValue();
+        long hi = ((Number) range.get("hi")).longValue();
+
+        List<Future<Rollup>> batches = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (long from = lo; from <= hi; from += batchSize) {
+                long to = Math.min(from + batchSize - 1, hi);
+                long start = from;
+                batches.add(executor.submit(() -> scanBatch(start, to)));
+            }
+            for (Future<Rollup> batch : batches) {
+                rollup.addAll(batch.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sales analytics rebuild was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Sales analytics rebuild failed", ex.getCause());
+        }
+        return new Result(rollup, batches.size());
+    }
+
+    private Rollup scanBatch(long from, long to) {
+        Rollup batch = new Rollup();
+        jdbcTemplate.query(BOOKS_SQL, rs -> {
+            batch.books.put(rs.getLong(1), totals(rs));
+        }, from, to);
+        jdbcTemplate.query(GENRES_SQL, rs -> {
+            batch.genres.put(rs.getString(1), totals(rs));
+        }, from, to);
+        jdbcTemplate.query(DAYS_SQL, rs -> {
+            batch.days.put(rs.getObject(1, Date.class).toLocalDate(), totals(rs));
+        }, from, to);
+        jdbcTemplate.query(STATUSES_SQL, rs -> {
+            batch.statuses.put(Order.OrderStatus.valueOf(rs.getString(1)), rs.getLong(2));
+        }, from, to);
+        return batch;
+    }
+
+    private static Totals totals(ResultSet rs) throws SQLException {
+        return new Totals(rs.getLong(2), rs.getLong(3), Money.of(rs.getBigDecimal(4)).cents());
+    }
+}
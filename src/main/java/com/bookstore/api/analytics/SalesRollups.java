@@ -0,0 +1,155 @@
+package com.bookstore.api.analytics;
+
+import com.bookstore.api.dto.AnalyticsRebuildResult;
+import com.bookstore.api.event.OrderChangedEvent;
+import com.bookstore.api.outbox.OrderEventHandler;
+import com.bookstore.api.repository.BookSalesRepository;
+import com.bookstore.api.repository.DailySalesRepository;
+import com.bookstore.api.repository.GenreSalesRepository;
+import com.bookstore.api.repository.OrderOutboxRepository;
+import com.bookstore.api.repository.OrderStatusCountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the sales_by_* and orders_by_status tables up to date from the order outbox. Changes
+ * are folded into in-memory deltas and written once per outbox batch, in the transaction that
+ * deletes the batch's entries, so every order does not have to update the same per-day and
+ * per-status rows and a crash never loses or repeats a delta.
+ * <p>
+ * {@link #rebuild()} recomputes everything from the orders table and drops the outbox entries
+ * that were already waiting when it started, since the scan covers them. Changes committed while
+ * the scan runs may still be counted twice, so it is meant for quiet periods.
+ */
+@Component
+public class SalesRollups implements OrderEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollups.class);
+
+    private static final String BOOK_SQL = "insert into sales_by_book (book_id, order_count, units_sold, revenue) " +
+            "values (?, ?, ?, ?) on duplicate key update order_count = order_count + ?, " +
+            "units_sold = units_sold + ?, revenue = revenue + ?";
+    private static final String GENRE_SQL = "insert into sales_by_genre (genre, order_count, units_sold, revenue) " +
+            "values (?, ?, ?, ?) on duplicate key update order_count = order_count + ?, " +
+            "units_sold = units_sold + ?, revenue = revenue + ?";
+    private static final String DAY_SQL = "insert into sales_by_day (sales_date, order_count, units_sold, revenue) " +
+            "values (?, ?, ?, ?) on duplicate key update order_count = order_count + ?, " +
+            "units_sold = units_sold + ?, revenue = revenue + ?";
+    private static final String STATUS_SQL = "insert into orders_by_status (status, order_count) values (?, ?) " +
+            "on duplicate key update order_count = order_count + ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesHistoryScanner scanner;
+    private final OrderOutboxRepository outboxRepository;
+    private final BookSalesRepository bookSalesRepository;
+    private final GenreSalesRepository genreSalesRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final OrderStatusCountRepository statusCountRepository;
+
+    private final Rollup pending = new Rollup();
+    // Keeps a batch from writing deltas underneath a rebuild
+    private final Lock writeLock = new ReentrantLock();
+
+    public SalesRollups(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        SalesHistoryScanner scanner,
+                        OrderOutboxRepository outboxRepository,
+                        BookSalesRepository bookSalesRepository,
+                        GenreSalesRepository genreSalesRepository,
+                        DailySalesRepository dailySalesRepository,
+                        OrderStatusCountRepository statusCountRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scanner = scanner;
+        this.outboxRepository = outboxRepository;
+        this.bookSalesRepository = bookSalesRepository;
+        this.genreSalesRepository = genreSalesRepository;
+        this.dailySalesRepository = dailySalesRepository;
+        this.statusCountRepository = statusCountRepository;
+    }
+
+    @Override
+    public String name() {
+        return "sales-analytics";
+    }
+
+    @Override
+    public void handle(OrderChangedEvent event) {
+        pending.apply(event);
+    }
+
+    /**
+     * Writes the deltas of the batch just delivered. If the transaction rolls back they are
+     * dropped with it, and the entries they came from are delivered again.
+     */
+    @Override
+    public void completeBatch() {
+        writeLock.lock();
+        try {
+            Rollup deltas = pending.drain();
+            if (!deltas.isEmpty()) {
+                write(deltas);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public AnalyticsRebuildResult rebuild() {
+        writeLock.lock();
+        try {
+            long started = System.nanoTime();
+            // Entries up to here are for changes already committed, so the scan below includes them.
+            // Deltas of a batch in flight stay pending: if any of its entries are dropped here, the
+            // batch fails to complete and its other entries are delivered again
+            long scannedThrough = outboxRepository.findMaxIdByHandler(name());
+            SalesHistoryScanner.Result scan = scanner.scan();
+            transactionTemplate.executeWithoutResult(status -> {
+                bookSalesRepository.deleteAllInBatch();
+                genreSalesRepository.deleteAllInBatch();
+                dailySalesRepository.deleteAllInBatch();
+                statusCountRepository.deleteAllInBatch();
+                write(scan.rollup());
+                outboxRepository.deleteByHandlerUpTo(name(), scannedThrough);
+            });
+            long orders = scan.rollup().statuses.values().stream().mapToLong(Long::longValue).sum();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            log.info("Rebuilt sales analytics from {} orders in {} batches ({} ms)", orders, scan.batches(), elapsed);
+            return new AnalyticsRebuildResult(orders, scan.batches(), elapsed);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(Rollup rollup) {
+        jdbcTemplate.batchUpdate(BOOK_SQL, rollup.books.entrySet().stream()
+                .map(entry -> upsert(entry.getKey(), entry.getValue()))
+                .toList());
+        jdbcTemplate.batchUpdate(GENRE_SQL, rollup.genres.entrySet().stream()
+                .map(entry -> upsert(entry.getKey(), entry.getValue()))
+                .toList());
+        jdbcTemplate.batchUpdate(DAY_SQL, rollup.days.entrySet().stream()
+                .map(entry -> upsert(Date.valueOf(entry.getKey()), entry.getValue()))
+                .toList());
+        jdbcTemplate.batchUpdate(STATUS_SQL, rollup.statuses.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey().name(), entry.getValue(), entry.getValue()})
+                .toList());
+    }
+
+    private static Object[] upsert(Object key, Totals totals) {
+        BigDecimal revenue = BigDecimal.valueOf(totals.revenueCents(), 2);
+        return new Object[]{key, totals.orders(), totals.units(), revenue,
+                totals.orders(), totals.units(), revenue};
+    }
+}
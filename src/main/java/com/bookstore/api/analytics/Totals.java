@@ -0,0 +1,13 @@
+package com.bookstore.api.analytics;
+
+// Revenue is kept in cents so merging many deltas stays exact
+record Totals(long orders, long units, long revenueCents) {
+
+    Totals plus(Totals other) {
+        return new Totals(orders + other.orders, units + other.units, revenueCents + other.revenueCents);
+    }
+
+    Totals times(int sign) {
+        return new Totals(orders * sign, units * sign, revenueCents * sign);
+    }
+}
@@ -0,0 +1,40 @@
+package com.bookstore.api.cache;
+
+import com.bookstore.api.event.BookChangedEvent.ListingFields;
+import com.bookstore.api.search.SearchText;
+import org.springframework.util.StringUtils;
+
+import java.util.function.Predicate;
+
+/**
+ * Identifies one page of the public book listing. Blank filters are normalized to null.
+ */
+public record BookPageKey(int page, int size, String search, String genre) {
+
+    public BookPageKey {
+        search = StringUtils.hasText(search) ? search : null;
+        genre = StringUtils.hasText(genre) ? genre : null;
+    }
+
+    /**
+     * Predicate for the pages a book with these fields could fall under. Genre wins over search,
+     * as in the listing. For search this is deliberately broad: every query token must appear
+     * somewhere in the title, author or ISBN, which covers both the index and LIKE matching.
+     */
+    public static Predicate<BookPageKey> matching(ListingFields fields) {
+        // Normalized once per change rather than once per cached page
+        String title = SearchText.normalize(fields.title());
+        String author = SearchText.normalize(fields.author());
+        String isbn = SearchText.normalizeIsbn(fields.isbn());
+        return key -> {
+            if (key.genre() != null) {
+                return key.genre().equalsIgnoreCase(fields.genre());
+            }
+            if (key.search() != null) {
+                return SearchText.tokenize(key.search()).stream()
+                        .allMatch(token -> title.contains(token) || author.contains(token) || isbn.contains(token));
+            }
+            return true;
+        };
+    }
+}
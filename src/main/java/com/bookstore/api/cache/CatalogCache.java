@@ -0,0 +1,161 @@
+package com.bookstore.api.cache;
+
+import com.bookstore.api.datasource.DataSourceRoute;
+import com.bookstore.api.dto.BookResponse;
+import com.bookstore.api.dto.BookSearchResponse;
+import com.bookstore.api.event.BookChangedEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Read-through cache for the public catalog: single books by id and listing pages by query.
+ * Concurrent misses on the same key share one load, so a cold key reaches the database once.
+ * <p>
+ * Loads run on their own virtual threads instead of inside the cache's map lock: a blocking query
+ * under that monitor would pin the carrier of a virtual request thread.
+ */
+@Component
+public class CatalogCache implements MeterBinder {
+
+    private final AsyncCache<Long, BookResponse> books;
+    private final AsyncCache<BookPageKey, Page<BookSearchResponse>> pages;
+    private final ExecutorService loadExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("catalog-load-", 0).factory());
+    // Loads read from a replica when the request that triggered them may
+    private final Executor routedLoadExecutor = DataSourceRoute.propagating(loadExecutor);
+
+    // Which cached pages show a given book, for updates that don't move it between pages
+    private final Map<Long, Set<BookPageKey>> pagesByBook = new ConcurrentHashMap<>();
+
+    public CatalogCache(@Value("${app.catalog-cache.book-max-size:10000}") long bookMaxSize,
+                        @Value("${app.catalog-cache.book-ttl-seconds:300}") long bookTtlSeconds,
+                        @Value("${app.catalog-cache.page-max-size:1000}") long pageMaxSize,
+                        @Value("${app.catalog-cache.page-ttl-seconds:60}") long pageTtlSeconds) {
+        this.books = Caffeine.newBuilder()
+                .maximumSize(bookMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(bookTtlSeconds))
+                .executor(routedLoadExecutor)
+                .recordStats()
+                .buildAsync();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(pageMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(pageTtlSeconds))
+                .executor(routedLoadExecutor)
+                .<BookPageKey, Page<BookSearchResponse>>removalListener((key, page, cause) -> unregister(key, page))
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached book or loads it. A loader returning null (book not found) is not cached.
+     */
+    public BookResponse getBook(Long id, Function<Long, BookResponse> loader) {
+        return join(books.get(id, loader));
+    }
+
+    /**
+     * Returns the requested books that exist, loading all misses with one call to the loader.
+     */
+    public Map<Long, BookResponse> getBooks(Collection<Long> ids, Function<Set<Long>, Map<Long, BookResponse>> loader) {
+        return join(books.getAll(ids, missing -> loader.apply(Set.copyOf(missing))));
+    }
+
+    public Page<BookSearchResponse> getPage(BookPageKey key, Function<BookPageKey, Page<BookSearchResponse>> loader) {
+        return join(pages.get(key, k -> {
+            Page<BookSearchResponse> page = loader.apply(k);
+            page.forEach(book -> pagesByBook.computeIfAbsent(book.getId(), id -> ConcurrentHashMap.newKeySet()).add(k));
+            return page;
+        }));
+    }
+
+    // Loads already started finish; requests arriving during shutdown fail instead of waiting
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, books, "catalog.books");
+        CaffeineCacheMetrics.monitor(registry, pages, "catalog.pages");
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        books.synchronous().invalidate(event.bookId());
+
+        switch (event.type()) {
+            case STOCK_CHANGED -> {
+                // Listings don't show stock
+            }
+            case UPDATED -> {
+                if (event.before().equals(event.after())) {
+                    // Same filter and sort fields, so only pages showing the book change
+                    Set<BookPageKey> keys = pagesByBook.get(event.bookId());
+                    if (keys != null) {
+                        pages.synchronous().invalidateAll(Set.copyOf(keys));
+                    }
+                } else {
+                    invalidateMatchingPages(event);
+                }
+            }
+            case CREATED, DELETED -> invalidateMatchingPages(event);
+        }
+    }
+
+    private void invalidateMatchingPages(BookChangedEvent event) {
+        Predicate<BookPageKey> affected = key -> false;
+        if (event.before() != null) {
+            affected = affected.or(BookPageKey.matching(event.before()));
+        }
+        if (event.after() != null) {
+            affected = affected.or(BookPageKey.matching(event.after()));
+        }
+        pages.synchronous().asMap().keySet().removeIf(affected);
+    }
+
+    // Surfaces loader failures as they would have been thrown by a synchronous load
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void unregister(BookPageKey key, Page<BookSearchResponse> page) {
+        if (key == null || page == null) {
+            return;
+        }
+        for (BookSearchResponse book : page) {
+            pagesByBook.computeIfPresent(book.getId(), (id, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+}
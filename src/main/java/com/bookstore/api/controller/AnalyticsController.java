@@ -0,0 +1,120 @@
+package com.bookstore.api.controller;
+
+import com.bookstore.api.analytics.SalesRollups;
+import com.bookstore.api.dto.AnalyticsRebuildResult;
+import com.bookstore.api.dto.BestsellerResponse;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.BookSales;
+import com.bookstore.api.model.DailySales;
+import com.bookstore.api.model.GenreSales;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.OrderStatusCount;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.BookSalesRepository;
+import com.bookstore.api.repository.DailySalesRepository;
+import com.bookstore.api.repository.GenreSalesRepository;
+import com.bookstore.api.repository.OrderStatusCountRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the precomputed sales rollups; every endpoint reads a handful of rows no matter how many
+ * orders exist. Figures trail the orders by up to one flush interval.
+ */
+@RestController
+@RequestMapping("/api/admin/analytics")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+
+    private static final int MAX_BESTSELLERS = 100;
+
+    private final BookSalesRepository bookSalesRepository;
+    private final GenreSalesRepository genreSalesRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final OrderStatusCountRepository statusCountRepository;
+    private final BookRepository bookRepository;
+    private final SalesRollups salesRollups;
+
+    public AnalyticsController(BookSalesRepository bookSalesRepository,
+                               GenreSalesRepository genreSalesRepository,
+                               DailySalesRepository dailySalesRepository,
+                               OrderStatusCountRepository statusCountRepository,
+                               BookRepository bookRepository,
+                               SalesRollups salesRollups) {
+        this.bookSalesRepository = bookSalesRepository;
+        this.genreSalesRepository = genreSalesRepository;
+        this.dailySalesRepository = dailySalesRepository;
+        this.statusCountRepository = statusCountRepository;
+        this.bookRepository = bookRepository;
+        this.salesRollups = salesRollups;
+    }
+
+    @GetMapping("/bestsellers")
+    public ResponseEntity<List<BestsellerResponse>> getBestsellers(@RequestParam(defaultValue = "10") int limit) {
+        List<BookSales> sales = bookSalesRepository.findAllByOrderByUnitsSoldDesc(
+                PageRequest.of(0, Math.max(1, Math.min(limit, MAX_BESTSELLERS))));
+        Map<Long, Book> books = bookRepository.findAllById(sales.stream().map(BookSales::getBookId).toList()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        return ResponseEntity.ok(sales.stream()
+                .map(entry -> toBestsellerResponse(entry, books.get(entry.getBookId())))
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/genres")
+    public ResponseEntity<List<GenreSales>> getGenreSales() {
+        return ResponseEntity.ok(genreSalesRepository.findAll(Sort.by(Sort.Direction.DESC, "revenue")));
+    }
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailySales>> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return ResponseEntity.ok(dailySalesRepository.findBySalesDateBetweenOrderBySalesDateAsc(start, end));
+    }
+
+    @GetMapping("/statuses")
+    public ResponseEntity<Map<Order.OrderStatus, Long>> getOrderStatusCounts() {
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (OrderStatusCount count : statusCountRepository.findAll()) {
+            counts.put(count.getStatus(), count.getOrderCount());
+        }
+        return ResponseEntity.ok(counts);
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<AnalyticsRebuildResult> rebuild() {
+        return ResponseEntity.ok(salesRollups.rebuild());
+    }
+
+    private BestsellerResponse toBestsellerResponse(BookSales sales, Book book) {
+        BestsellerResponse response = new BestsellerResponse();
+        response.setBookId(sales.getBookId());
+        if (book != null) {
+            response.setTitle(book.getTitle());
+            response.setAuthor(book.getAuthor());
+            response.setGenre(book.getGenre());
+        }
+        response.setOrderCount(sales.getOrderCount());
+        response.setUnitsSold(sales.getUnitsSold());
+        response.setRevenue(sales.getRevenue());
+        return response;
+    }
+}
@@ -3,71 +3,128 @@ package com.bookstore.api.controller;
 import com.bookstore.api.dto.AuthRequest;
 import com.bookstore.api.dto.AuthResponse;
 import com.bookstore.api.dto.RegisterRequest;
+import com.bookstore.api.exception.HashingCapacityExceededException;
 import com.bookstore.api.model.User;
 import com.bookstore.api.repository.UserRepository;
 import com.bookstore.api.security.JwtTokenProvider;
+import com.bookstore.api.security.LoginRateLimiter;
+import com.bookstore.api.security.PasswordHashingService;
+import com.bookstore.api.security.UserDirectory;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Password checks run on {@link PasswordHashingService}'s pool, so the request thread is released
+ * while BCrypt works and the responses complete asynchronously. What follows a hash runs on a
+ * virtual thread of its own, so database work never holds one of the few hashing threads.
+ */
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
 public class AuthController {
 
-    private final AuthenticationManager authenticationManager;
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserDirectory userDirectory;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginRateLimiter loginRateLimiter;
     private final JwtTokenProvider tokenProvider;
+    private final ExecutorService continuations = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("auth-", 0).factory());
 
-    public AuthController(AuthenticationManager authenticationManager,
-                         UserRepository userRepository,
-                         PasswordEncoder passwordEncoder,
+    public AuthController(UserRepository userRepository,
+                         UserDirectory userDirectory,
+                         PasswordHashingService passwordHashingService,
+                         LoginRateLimiter loginRateLimiter,
                          JwtTokenProvider tokenProvider) {
-        this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.userDirectory = userDirectory;
+        this.passwordHashingService = passwordHashingService;
+        this.loginRateLimiter = loginRateLimiter;
         this.tokenProvider = tokenProvider;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody AuthRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(
-                loginRequest.getEmail(),
-                loginRequest.getPassword()
-            )
-        );
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.generateToken(authentication);
-        
-        User user = userRepository.findByEmail(loginRequest.getEmail())
-            .orElseThrow(() -> new RuntimeException("User not found"));
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody AuthRequest loginRequest,
+                                                                 HttpServletRequest request) {
+        String email = loginRequest.getEmail();
+        loginRateLimiter.acquire(email, request.getRemoteAddr());
 
-        return ResponseEntity.ok(new AuthResponse(jwt, user.getEmail(), user.getRole().name()));
+        UserDirectory.UserPrincipal user = userDirectory.find(email).orElse(null);
+        return passwordHashingService.matches(loginRequest.getPassword(), user != null ? user.password() : null)
+            .thenApplyAsync(matched -> {
+                if (!matched) {
+                    loginRateLimiter.recordFailure(email);
+                    return new ResponseEntity<>("Invalid email or password", HttpStatus.UNAUTHORIZED);
+                }
+                loginRateLimiter.recordSuccess(email);
+                if (passwordHashingService.needsRehash(user.password())) {
+                    rehash(user, loginRequest.getPassword());
+                }
+                String jwt = tokenProvider.generateToken(user.email());
+                return ResponseEntity.ok(new AuthResponse(jwt, user.email(), user.role().name()));
+            }, continuations);
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody RegisterRequest registerRequest,
+                                                             HttpServletRequest request) {
+        loginRateLimiter.acquire(null, request.getRemoteAddr());
         if (userRepository.existsByEmail(registerRequest.getEmail())) {
-            return new ResponseEntity<>("Email is already taken!", HttpStatus.BAD_REQUEST);
+            return CompletableFuture.completedFuture(
+                new ResponseEntity<>("Email is already taken!", HttpStatus.BAD_REQUEST));
         }
 
-        User user = new User();
-        user.setName(registerRequest.getName());
-        user.setEmail(registerRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
-        user.setRole(User.Role.valueOf(registerRequest.getRole().toUpperCase()));
+        return passwordHashingService.encode(registerRequest.getPassword())
+            .thenApplyAsync(encoded -> {
+                User user = new User();
+                user.setName(registerRequest.getName());
+                user.setEmail(registerRequest.getEmail());
+                user.setPassword(encoded);
+                user.setRole(User.Role.valueOf(registerRequest.getRole().toUpperCase()));
+                try {
+                    userRepository.save(user);
+                } catch (DataIntegrityViolationException ex) {
+                    // Registered concurrently while the password was hashing
+                    return new ResponseEntity<>("Email is already taken!", HttpStatus.BAD_REQUEST);
+                }
+                return new ResponseEntity<>("User registered successfully", HttpStatus.CREATED);
+            }, continuations);
+    }
 
-        userRepository.save(user);
+    // Lets rehash writes already handed over finish
+    @PreDestroy
+    public void shutdown() {
+        continuations.shutdown();
+    }
 
-        return new ResponseEntity<>("User registered successfully", HttpStatus.CREATED);
+    // Best effort: the login has already succeeded, so a busy pool only postpones the upgrade
+    private void rehash(UserDirectory.UserPrincipal user, String rawPassword) {
+        try {
+            passwordHashingService.encode(rawPassword)
+                .thenAcceptAsync(encoded -> {
+                    // A bulk update skips the entity listeners, so the directory is told directly
+                    userRepository.updatePassword(user.id(), encoded);
+                    userDirectory.evict(user.id(), user.email());
+                }, continuations)
+                .exceptionally(ex -> {
+                    log.warn("Could not upgrade password hash for user {}", user.id(), ex);
+                    return null;
+                });
+        } catch (HashingCapacityExceededException ex) {
+            log.debug("Hashing pool busy, password hash for user {} upgraded on a later login", user.id());
+        }
     }
-}
\ No newline at end of file
+}
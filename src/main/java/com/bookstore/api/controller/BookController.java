@@ -1,80 +1,179 @@
 package com.bookstore.api.controller;
 
+import com.bookstore.api.cache.BookPageKey;
+import com.bookstore.api.cache.CatalogCache;
+import com.bookstore.api.datasource.ReadFromReplica;
 import com.bookstore.api.dto.BookRequest;
 import com.bookstore.api.dto.BookResponse;
 import com.bookstore.api.dto.BookSearchResponse;
+import com.bookstore.api.dto.BulkImportResult;
+import com.bookstore.api.dto.CursorPage;
+import com.bookstore.api.dto.FacetedBookPage;
+import com.bookstore.api.dto.PageCursor;
+import com.bookstore.api.event.BookChangedEvent;
 import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
 import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.search.BookFacetIndex;
+import com.bookstore.api.search.BookSearchIndex;
+import com.bookstore.api.service.BookImportService;
+import com.bookstore.api.stock.StockReservationEngine;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
 @CrossOrigin(origins = "*")
 public class BookController {
 
+    // Deeper pages of /browse cost a heap this large per request; /after pages by key instead
+    private static final long MAX_BROWSE_OFFSET = 10_000;
+
     private final BookRepository bookRepository;
+    private final CatalogCache catalogCache;
+    private final BookSearchIndex searchIndex;
+    private final BookFacetIndex facetIndex;
+    private final BookImportService bookImportService;
+    private final StockReservationEngine stockEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BookController(BookRepository bookRepository) {
+    public BookController(BookRepository bookRepository,
+                          CatalogCache catalogCache,
+                          BookSearchIndex searchIndex,
+                          BookFacetIndex facetIndex,
+                          BookImportService bookImportService,
+                          StockReservationEngine stockEngine,
+                          ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.bookImportService = bookImportService;
+        this.stockEngine = stockEngine;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
+    @ReadFromReplica
     public ResponseEntity<Page<BookSearchResponse>> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String genre) {
 
-        PageRequest pageRequest = PageRequest.of(page, size, Sort.by("title"));
-        Page<Book> bookPage;
+        BookPageKey key = new BookPageKey(page, size, search, genre);
+        Page<BookSearchResponse> books = catalogCache.getPage(key, this::loadPage);
+        // A matching If-None-Match turns this into a 304 before the page is serialized
+        return ResponseEntity.ok().eTag(pageETag(books)).body(books);
+    }
 
-        if (genre != null && !genre.isEmpty()) {
-            bookPage = bookRepository.findByGenre(genre, pageRequest);
-        } else if (search != null && !search.isEmpty()) {
-            bookPage = bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(
-                search, search, pageRequest);
+    /**
+     * Keyset variant of the listing, selected by the {@code after} parameter (empty for the first
+     * page). It seeks on (title, id) and skips the count query, so deep pages cost the same as the first.
+     */
+    @GetMapping(params = "after")
+    @ReadFromReplica
+    public ResponseEntity<?> getBooksAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String genre) {
+
+        if (size < 1 || size > 100) {
+            return new ResponseEntity<>("size must be between 1 and 100", HttpStatus.BAD_REQUEST);
+        }
+        BookPageKey filter = new BookPageKey(0, size, search, genre);
+        if (filter.genre() == null && filter.search() != null) {
+            return new ResponseEntity<>("Cursor pagination is not supported with search", HttpStatus.BAD_REQUEST);
+        }
+
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Book> books;
+        if (after.isEmpty()) {
+            books = filter.genre() != null
+                    ? bookRepository.findByGenreOrderByTitleAscIdAsc(filter.genre(), limit)
+                    : bookRepository.findAllByOrderByTitleAscIdAsc(limit);
         } else {
-            bookPage = bookRepository.findAll(pageRequest);
+            PageCursor cursor = PageCursor.decode(after);
+            books = filter.genre() != null
+                    ? bookRepository.findPageByGenreAfter(filter.genre(), cursor.sortKey(), cursor.id(), limit)
+                    : bookRepository.findPageAfter(cursor.sortKey(), cursor.id(), limit);
         }
 
-        Page<BookSearchResponse> response = bookPage.map(book -> {
-            BookSearchResponse dto = new BookSearchResponse();
-            dto.setId(book.getId());
-            dto.setTitle(book.getTitle());
-            dto.setAuthor(book.getAuthor());
-            dto.setGenre(book.getGenre());
-            dto.setPrice(book.getPrice());
-            dto.setImageUrl(book.getImageUrl());
-            return dto;
-        });
+        return ResponseEntity.ok(CursorPage.of(books, size, this::toSearchResponse,
+                book -> new PageCursor(book.getId(), book.getTitle())));
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * Filtered listing with counts per genre, price range and stock state, all answered from the
+     * facet index. Several {@code genre} values are OR-ed; the filters are AND-ed.
+     */
+    @GetMapping("/browse")
+    @ReadFromReplica
+    public ResponseEntity<?> browseBooks(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) List<String> genre,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) @DecimalMin(value = "0.00", message = "minPrice must not be negative")
+            @Digits(integer = 10, fraction = 2, message = "minPrice must have at most 10 digits and 2 decimals")
+            BigDecimal minPrice,
+            @RequestParam(required = false) @DecimalMin(value = "0.00", message = "maxPrice must not be negative")
+            @Digits(integer = 10, fraction = 2, message = "maxPrice must have at most 10 digits and 2 decimals")
+            BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock) {
+
+        if (page < 0 || size < 1 || size > 100) {
+            return new ResponseEntity<>("page must be >= 0 and size between 1 and 100", HttpStatus.BAD_REQUEST);
+        }
+        long offset = (long) page * size;
+        if (offset > MAX_BROWSE_OFFSET) {
+            return new ResponseEntity<>("page * size must not exceed " + MAX_BROWSE_OFFSET
+                    + "; use /api/books/after to page further", HttpStatus.BAD_REQUEST);
+        }
+        if (!facetIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body("The catalog facets are still loading");
+        }
+
+        BookFacetIndex.Filter filter = new BookFacetIndex.Filter(genre,
+                author != null && !author.isBlank() ? author : null,
+                minPrice != null ? Money.of(minPrice) : null, maxPrice != null ? Money.of(maxPrice) : null, inStock);
+        BookFacetIndex.Result result = facetIndex.query(filter, offset, size);
+        return ResponseEntity.ok(new FacetedBookPage(content(result.ids()), page, size, result.total(), result.facets()));
     }
 
     @GetMapping("/{id}")
+    @ReadFromReplica
     public ResponseEntity<BookResponse> getBookById(@PathVariable Long id) {
-        return bookRepository.findById(id)
-                .map(book -> {
-                    BookResponse response = new BookResponse();
-                    response.setId(book.getId());
-                    response.setTitle(book.getTitle());
-                    response.setAuthor(book.getAuthor());
-                    response.setGenre(book.getGenre());
-                    response.setIsbn(book.getIsbn());
-                    response.setPrice(book.getPrice());
-                    response.setDescription(book.getDescription());
-                    response.setStockQuantity(book.getStockQuantity());
-                    response.setImageUrl(book.getImageUrl());
-                    return ResponseEntity.ok(response);
-                })
-                .orElse(ResponseEntity.notFound().build());
+        BookResponse response = catalogCache.getBook(id, this::loadBook);
+        if (response == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag("\"" + response.getId() + "-" + response.getVersion() + "\"").body(response);
     }
 
     @PostMapping
@@ -89,30 +188,51 @@ public class BookController {
         book.setAuthor(bookRequest.getAuthor());
         book.setGenre(bookRequest.getGenre());
         book.setIsbn(bookRequest.getIsbn());
-        book.setPrice(bookRequest.getPrice());
+        book.setPrice(Money.of(bookRequest.getPrice()));
         book.setDescription(bookRequest.getDescription());
         book.setStockQuantity(bookRequest.getStockQuantity());
         book.setImageUrl(bookRequest.getImageUrl());
 
         Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.created(savedBook));
         return new ResponseEntity<>(savedBook, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkImportResult> importBooks(HttpServletRequest request) throws IOException {
+        BookImportService.Format format = BookImportService.Format.fromMediaType(request.getContentType());
+        return ResponseEntity.ok(bookImportService.importBooks(request.getReader(), format));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "ndjson") String format) {
+        BookImportService.Format exportFormat = BookImportService.Format.fromName(format);
+        StreamingResponseBody body = out -> bookImportService.exportBooks(out, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateBook(@PathVariable Long id, @Valid @RequestBody BookRequest bookRequest) {
-        return bookRepository.findById(id)
+        return stockEngine.overwriteStock(List.of(id), () -> bookRepository.findById(id)
                 .map(book -> {
+                    BookChangedEvent.ListingFields before = BookChangedEvent.ListingFields.of(book);
                     book.setTitle(bookRequest.getTitle());
                     book.setAuthor(bookRequest.getAuthor());
                     book.setGenre(bookRequest.getGenre());
-                    book.setPrice(bookRequest.getPrice());
+                    book.setPrice(Money.of(bookRequest.getPrice()));
                     book.setDescription(bookRequest.getDescription());
                     book.setStockQuantity(bookRequest.getStockQuantity());
                     book.setImageUrl(bookRequest.getImageUrl());
-                    return new ResponseEntity<>(bookRepository.save(book), HttpStatus.OK);
+                    Book savedBook = bookRepository.save(book);
+                    eventPublisher.publishEvent(BookChangedEvent.updated(before, savedBook));
+                    return new ResponseEntity<>(savedBook, HttpStatus.OK);
                 })
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @DeleteMapping("/{id}")
@@ -121,8 +241,107 @@ public class BookController {
         return bookRepository.findById(id)
                 .map(book -> {
                     bookRepository.delete(book);
+                    eventPublisher.publishEvent(BookChangedEvent.deleted(book));
                     return ResponseEntity.ok().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
-}
\ No newline at end of file
+
+    private Page<BookSearchResponse> loadPage(BookPageKey key) {
+        PageRequest pageRequest = PageRequest.of(key.page(), key.size(), Sort.by("title"));
+        Page<Book> bookPage;
+
+        if (key.genre() != null) {
+            bookPage = bookRepository.findByGenre(key.genre(), pageRequest);
+        } else if (key.search() != null && searchIndex.isReady()) {
+            return searchPage(key, pageRequest);
+        } else if (key.search() != null) {
+            bookPage = bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(
+                key.search(), key.search(), pageRequest);
+        } else {
+            bookPage = bookRepository.findAll(pageRequest);
+        }
+
+        return bookPage.map(this::toSearchResponse);
+    }
+
+    private Page<BookSearchResponse> searchPage(BookPageKey key, PageRequest pageRequest) {
+        BookSearchIndex.SearchResult result = searchIndex.search(
+                key.search(), (int) pageRequest.getOffset(), pageRequest.getPageSize());
+        return new PageImpl<>(content(result.ids()), PageRequest.of(key.page(), key.size()), result.total());
+    }
+
+    // Keeps the order the index returned; books deleted since the query are skipped
+    private List<BookSearchResponse> content(List<Long> ids) {
+        Map<Long, BookResponse> books = catalogCache.getBooks(ids, this::loadBooks);
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .map(this::toSearchResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Validator over the (id, version) pairs on the page and the total, so an edit, insert or
+     * delete that shows up in the page changes it. It is weak because Tomcat will not gzip a
+     * response carrying a strong ETag, and listing pages are what compression is for.
+     */
+    private static String pageETag(Page<BookSearchResponse> page) {
+        long hash = page.getTotalElements();
+        for (BookSearchResponse book : page.getContent()) {
+            hash = 31 * hash + book.getId();
+            hash = 31 * hash + (book.getVersion() != null ? book.getVersion() : 0);
+        }
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    private Map<Long, BookResponse> loadBooks(Set<Long> ids) {
+        return bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, this::toBookResponse));
+    }
+
+    private BookResponse loadBook(Long id) {
+        return bookRepository.findById(id)
+                .map(this::toBookResponse)
+                .orElse(null);
+    }
+
+    BookSearchResponse toSearchResponse(Book book) {
+        BookSearchResponse dto = new BookSearchResponse();
+        dto.setId(book.getId());
+        dto.setTitle(book.getTitle());
+        dto.setAuthor(book.getAuthor());
+        dto.setGenre(book.getGenre());
+        dto.setPrice(book.getPrice());
+        dto.setImageUrl(book.getImageUrl());
+        dto.setVersion(book.getVersion());
+        return dto;
+    }
+
+    BookSearchResponse toSearchResponse(BookResponse book) {
+        BookSearchResponse dto = new BookSearchResponse();
+        dto.setId(book.getId());
+        dto.setTitle(book.getTitle());
+        dto.setAuthor(book.getAuthor());
+        dto.setGenre(book.getGenre());
+        dto.setPrice(book.getPrice());
+        dto.setImageUrl(book.getImageUrl());
+        dto.setVersion(book.getVersion());
+        return dto;
+    }
+
+    BookResponse toBookResponse(Book book) {
+        BookResponse response = new BookResponse();
+        response.setId(book.getId());
+        response.setTitle(book.getTitle());
+        response.setAuthor(book.getAuthor());
+        response.setGenre(book.getGenre());
+        response.setIsbn(book.getIsbn());
+        response.setPrice(book.getPrice());
+        response.setDescription(book.getDescription());
+        response.setStockQuantity(book.getStockQuantity());
+        response.setImageUrl(book.getImageUrl());
+        response.setVersion(book.getVersion());
+        return response;
+    }
+}
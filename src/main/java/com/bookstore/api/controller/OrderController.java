@@ -1,15 +1,22 @@
 package com.bookstore.api.controller;
 
+import com.bookstore.api.datasource.ReadFromReplica;
+import com.bookstore.api.dto.BulkStatusUpdateRequest;
+import com.bookstore.api.dto.BulkStatusUpdateResult;
+import com.bookstore.api.dto.CursorPage;
 import com.bookstore.api.dto.OrderRequest;
 import com.bookstore.api.dto.OrderResponse;
 import com.bookstore.api.dto.OrderStatusUpdateRequest;
-import com.bookstore.api.model.Book;
+import com.bookstore.api.dto.PageCursor;
+import com.bookstore.api.exception.InvalidCursorException;
 import com.bookstore.api.model.Order;
-import com.bookstore.api.model.OrderItem;
 import com.bookstore.api.model.User;
-import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.pricing.PricingEngine;
 import com.bookstore.api.repository.OrderRepository;
 import com.bookstore.api.repository.UserRepository;
+import com.bookstore.api.security.UserDirectory;
+import com.bookstore.api.service.BulkOrderStatusService;
+import com.bookstore.api.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -20,8 +27,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,20 +38,29 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class OrderController {
 
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
-    private final BookRepository bookRepository;
+    private final UserDirectory userDirectory;
+    private final OrderService orderService;
+    private final BulkOrderStatusService bulkStatusService;
 
     public OrderController(OrderRepository orderRepository,
                           UserRepository userRepository,
-                          BookRepository bookRepository) {
+                          UserDirectory userDirectory,
+                          OrderService orderService,
+                          BulkOrderStatusService bulkStatusService) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
-        this.bookRepository = bookRepository;
+        this.userDirectory = userDirectory;
+        this.orderService = orderService;
+        this.bulkStatusService = bulkStatusService;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
+    @ReadFromReplica
     public ResponseEntity<Page<OrderResponse>> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
@@ -51,19 +68,60 @@ public class OrderController {
         return ResponseEntity.ok(orders.map(this::convertToOrderResponse));
     }
 
+    @GetMapping(params = "after")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ReadFromReplica
+    public ResponseEntity<?> getAllOrdersAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+        if (size < 1 || size > 100) {
+            return new ResponseEntity<>("size must be between 1 and 100", HttpStatus.BAD_REQUEST);
+        }
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Order> orders;
+        if (after.isEmpty()) {
+            orders = orderRepository.findAllByOrderByOrderDateDescIdDesc(limit);
+        } else {
+            PageCursor cursor = PageCursor.decode(after);
+            orders = orderRepository.findPageBefore(parseOrderDate(cursor), cursor.id(), limit);
+        }
+        return ResponseEntity.ok(toCursorPage(orders, size));
+    }
+
     @GetMapping("/my-orders")
     @PreAuthorize("hasRole('CUSTOMER')")
+    @ReadFromReplica
     public ResponseEntity<Page<OrderResponse>> getMyOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser();
 
         Page<Order> orders = orderRepository.findByUser(user, PageRequest.of(page, size));
         return ResponseEntity.ok(orders.map(this::convertToOrderResponse));
     }
 
+    @GetMapping(value = "/my-orders", params = "after")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @ReadFromReplica
+    public ResponseEntity<?> getMyOrdersAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+        if (size < 1 || size > 100) {
+            return new ResponseEntity<>("size must be between 1 and 100", HttpStatus.BAD_REQUEST);
+        }
+        User user = currentUser();
+
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Order> orders;
+        if (after.isEmpty()) {
+            orders = orderRepository.findByUserOrderByOrderDateDescIdDesc(user, limit);
+        } else {
+            PageCursor cursor = PageCursor.decode(after);
+            orders = orderRepository.findPageByUserBefore(user, parseOrderDate(cursor), cursor.id(), limit);
+        }
+        return ResponseEntity.ok(toCursorPage(orders, size));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
         return orderRepository.findById(id)
@@ -80,66 +138,87 @@ public class OrderController {
 
     @PostMapping
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest orderRequest) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Order order = new Order();
-        order.setUser(user);
-        order.setStatus(Order.OrderStatus.PENDING);
-        order.setPaymentStatus(Order.PaymentStatus.PENDING);
-
-        List<OrderItem> orderItems = new ArrayList<>();
-        double totalAmount = 0.0;
-
-        for (var itemRequest : orderRequest.getItems()) {
-            Book book = bookRepository.findById(itemRequest.getBookId())
-                    .orElseThrow(() -> new RuntimeException("Book not found: " + itemRequest.getBookId()));
-
-            if (book.getStockQuantity() < itemRequest.getQuantity()) {
-                return new ResponseEntity<>("Insufficient stock for book: " + book.getTitle(),
-                        HttpStatus.BAD_REQUEST);
-            }
-
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(order);
-            orderItem.setBook(book);
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setPrice(book.getPrice() * itemRequest.getQuantity());
-            orderItems.add(orderItem);
-
-            totalAmount += orderItem.getPrice();
-
-            // Update stock
-            book.setStockQuantity(book.getStockQuantity() - itemRequest.getQuantity());
-            bookRepository.save(book);
+    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest orderRequest,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            return ResponseEntity.badRequest()
+                    .body("Idempotency-Key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
         }
+        UserDirectory.UserPrincipal principal = currentPrincipal();
+        User user = userRepository.getReferenceById(principal.id());
+
+        // A replayed submission answers with the original order, and the same status
+        Order savedOrder = orderService.placeOrder(user, principal.tier(), orderRequest.getItems(), idempotencyKey);
 
-        order.setOrderItems(orderItems);
-        order.setTotalAmount(totalAmount);
-        Order savedOrder = orderRepository.save(order);
+        // Described from the principal: the order's user is only a reference and would load its row
+        return new ResponseEntity<>(convertToOrderResponse(savedOrder, principal.name(), principal.email()),
+                HttpStatus.CREATED);
+    }
 
-        return new ResponseEntity<>(convertToOrderResponse(savedOrder), HttpStatus.CREATED);
+    /**
+     * What placing these items would cost right now, with the promotions applied. Nothing is
+     * reserved, so the price or stock may have changed by the time the order is placed.
+     */
+    @PostMapping("/quote")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @ReadFromReplica
+    public ResponseEntity<PricingEngine.Quote> quoteOrder(@Valid @RequestBody OrderRequest orderRequest) {
+        return ResponseEntity.ok(orderService.quote(currentPrincipal().tier(), orderRequest.getItems()));
     }
 
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> updateOrderStatus(@PathVariable Long id,
                                              @Valid @RequestBody OrderStatusUpdateRequest statusRequest) {
-        return orderRepository.findById(id)
-                .map(order -> {
-                    order.setStatus(Order.OrderStatus.valueOf(statusRequest.getStatus().toUpperCase()));
-                    return ResponseEntity.ok(convertToOrderResponse(orderRepository.save(order)));
-                })
+        Order.OrderStatus status = Order.OrderStatus.valueOf(statusRequest.getStatus().toUpperCase());
+        return orderService.updateStatus(id, status)
+                .map(order -> ResponseEntity.ok(convertToOrderResponse(order)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    private OrderResponse convertToOrderResponse(Order order) {
+    /**
+     * Applies many status changes in one call and answers with a compact outcome per update
+     * rather than the orders themselves. Illegal or unknown changes are reported, not fatal.
+     */
+    @PostMapping("/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateResult> updateOrderStatuses(
+            @Valid @RequestBody BulkStatusUpdateRequest request) {
+        return ResponseEntity.ok(bulkStatusService.apply(request.getUpdates()));
+    }
+
+    // The directory knows the caller's id, so no users query is needed to reference them
+    private User currentUser() {
+        return userRepository.getReferenceById(currentPrincipal().id());
+    }
+
+    private UserDirectory.UserPrincipal currentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return userDirectory.require(auth.getName());
+    }
+
+    private CursorPage<OrderResponse> toCursorPage(List<Order> orders, int size) {
+        return CursorPage.of(orders, size, this::convertToOrderResponse,
+                order -> new PageCursor(order.getId(), order.getOrderDate().toString()));
+    }
+
+    private LocalDateTime parseOrderDate(PageCursor cursor) {
+        try {
+            return LocalDateTime.parse(cursor.sortKey());
+        } catch (DateTimeParseException ex) {
+            throw new InvalidCursorException(cursor.encode());
+        }
+    }
+
+    OrderResponse convertToOrderResponse(Order order) {
+        return convertToOrderResponse(order, order.getUser().getName(), order.getUser().getEmail());
+    }
+
+    private OrderResponse convertToOrderResponse(Order order, String customerName, String customerEmail) {
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
-        response.setCustomerName(order.getUser().getName());
-        response.setCustomerEmail(order.getUser().getEmail());
+        response.setCustomerName(customerName);
+        response.setCustomerEmail(customerEmail);
         response.setOrderStatus(order.getStatus().name());
         response.setPaymentStatus(order.getPaymentStatus().name());
         response.setTotalAmount(order.getTotalAmount());
@@ -147,9 +226,12 @@ public class OrderController {
 
         response.setItems(order.getOrderItems().stream().map(item -> {
             var itemResponse = new OrderResponse.OrderItemResponse();
-            itemResponse.setBookTitle(item.getBook().getTitle());
+            // Only the book's id is read, which the lazy proxy has without loading the row
+            itemResponse.setBookId(item.getBook().getId());
+            itemResponse.setBookTitle(item.getBookTitle());
+            itemResponse.setIsbn(item.getBookIsbn());
             itemResponse.setQuantity(item.getQuantity());
-            itemResponse.setPrice(item.getBook().getPrice());
+            itemResponse.setPrice(item.getUnitPrice());
             itemResponse.setSubtotal(item.getPrice());
             return itemResponse;
         }).collect(Collectors.toList()));
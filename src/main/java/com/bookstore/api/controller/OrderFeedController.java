@@ -0,0 +1,31 @@
+package com.bookstore.api.controller;
+
+import com.bookstore.api.feed.OrderFeed;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live order feed for admin dashboards, replacing polling of the order listing. Browsers'
+ * EventSource resends the last event id on reconnect by itself; other clients can pass it as
+ * the {@code lastEventId} parameter.
+ */
+@RestController
+@RequestMapping("/api/admin/orders")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class OrderFeedController {
+
+    private final OrderFeed orderFeed;
+
+    public OrderFeedController(OrderFeed orderFeed) {
+        this.orderFeed = orderFeed;
+    }
+
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                           @RequestParam(value = "lastEventId", required = false) String lastEventId) {
+        return orderFeed.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+}
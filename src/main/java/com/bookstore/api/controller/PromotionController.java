@@ -0,0 +1,86 @@
+package com.bookstore.api.controller;
+
+import com.bookstore.api.dto.PromotionRuleRequest;
+import com.bookstore.api.dto.PromotionRuleSet;
+import com.bookstore.api.dto.PromotionRulesRequest;
+import com.bookstore.api.dto.UserTierRequest;
+import com.bookstore.api.model.PromotionRule;
+import com.bookstore.api.model.User;
+import com.bookstore.api.pricing.PricingEngine;
+import com.bookstore.api.repository.PromotionRuleRepository;
+import com.bookstore.api.repository.UserRepository;
+import jakarta.validation.Valid;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Manages the promotions priced by {@link PricingEngine} and the customer tiers they refer to.
+ * Rules are replaced as a complete set, never edited one by one.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class PromotionController {
+
+    private final PromotionRuleRepository ruleRepository;
+    private final UserRepository userRepository;
+    private final PricingEngine pricingEngine;
+
+    public PromotionController(PromotionRuleRepository ruleRepository,
+                               UserRepository userRepository,
+                               PricingEngine pricingEngine) {
+        this.ruleRepository = ruleRepository;
+        this.userRepository = userRepository;
+        this.pricingEngine = pricingEngine;
+    }
+
+    @GetMapping("/promotions")
+    public ResponseEntity<PromotionRuleSet> getPromotions() {
+        List<PromotionRule> rules = ruleRepository.findAll(Sort.by("id"));
+        long version = rules.isEmpty() ? 0 : rules.get(rules.size() - 1).getId();
+        return ResponseEntity.ok(new PromotionRuleSet(version, rules));
+    }
+
+    @PutMapping("/promotions")
+    public ResponseEntity<PromotionRuleSet> replacePromotions(@Valid @RequestBody PromotionRulesRequest request) {
+        List<PromotionRule> rules = request.getRules().stream().map(this::toRule).toList();
+        long version = pricingEngine.replaceRules(rules);
+        return ResponseEntity.ok(new PromotionRuleSet(version, rules));
+    }
+
+    @PutMapping("/users/{id}/tier")
+    public ResponseEntity<?> updateUserTier(@PathVariable Long id, @Valid @RequestBody UserTierRequest request) {
+        User.Tier tier;
+        try {
+            tier = User.Tier.valueOf(request.getTier().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("Unknown tier, expected one of " + Arrays.toString(User.Tier.values()));
+        }
+        return userRepository.findById(id)
+                .map(user -> {
+                    user.setTier(tier);
+                    userRepository.save(user);
+                    return ResponseEntity.noContent().build();
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private PromotionRule toRule(PromotionRuleRequest request) {
+        PromotionRule rule = new PromotionRule();
+        rule.setName(request.getName());
+        rule.setType(request.getType());
+        rule.setGenre(request.getGenre());
+        rule.setTier(request.getTier());
+        rule.setPercentOff(request.getPercentOff());
+        rule.setBuyQuantity(request.getBuyQuantity());
+        rule.setFreeQuantity(request.getFreeQuantity());
+        return rule;
+    }
+}
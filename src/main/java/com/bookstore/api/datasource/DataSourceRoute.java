@@ -0,0 +1,50 @@
+package com.bookstore.api.datasource;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Whether connections taken on the current thread may come from a read replica. Set per request
+ * by {@link ReplicaRoutingInterceptor}; off everywhere else, so background jobs and writes always
+ * use the primary.
+ */
+public final class DataSourceRoute {
+
+    private static final ThreadLocal<Boolean> REPLICA_PREFERRED = new ThreadLocal<>();
+
+    private DataSourceRoute() {
+    }
+
+    public static boolean isReplicaPreferred() {
+        return Boolean.TRUE.equals(REPLICA_PREFERRED.get());
+    }
+
+    static void preferReplica() {
+        REPLICA_PREFERRED.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        REPLICA_PREFERRED.remove();
+    }
+
+    /**
+     * Wraps an executor so tasks run with the route of the thread that submitted them, e.g. cache
+     * loads started by a replica-routed request.
+     */
+    public static Executor propagating(Executor executor) {
+        return command -> {
+            boolean replica = isReplicaPreferred();
+            executor.execute(() -> {
+                if (!replica) {
+                    command.run();
+                    return;
+                }
+                preferReplica();
+                try {
+                    command.run();
+                } finally {
+                    clear();
+                }
+            });
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.bookstore.api.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only endpoint whose queries may be served by a read replica. The whole request is
+ * routed, because open-in-view keeps the first connection for the rest of the request; only put
+ * it on handlers that never write. Such handlers may use any HTTP method and do not count as a
+ * write for read-your-writes.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadFromReplica {
+}
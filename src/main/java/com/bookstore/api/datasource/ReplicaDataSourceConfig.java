@@ -0,0 +1,119 @@
+package com.bookstore.api.datasource;
+
+import com.bookstore.api.cache.CatalogCache;
+import com.bookstore.api.event.BookChangedEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read replica support, active when {@code app.datasource.replicas.urls} is set. The primary pool
+ * is still configured through {@code spring.datasource.*}; replicas share its credentials and
+ * driver unless overridden.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replicas.urls")
+public class ReplicaDataSourceConfig implements WebMvcConfigurer {
+
+    private final CatalogCache catalogCache;
+    private final ScheduledExecutorService invalidationScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-cache-invalidation").daemon(true).factory());
+
+    @Value("${app.datasource.replicas.read-your-writes-seconds:10}")
+    private long readYourWritesSeconds;
+
+    @Value("${app.datasource.replicas.max-lag-seconds:5}")
+    private long maxLagSeconds;
+
+    public ReplicaDataSourceConfig(CatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(
+            DataSourceProperties properties,
+            HikariDataSource primaryDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replicas.urls}") List<String> urls,
+            @Value("${app.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${app.datasource.replicas.lag-query:}") String lagQuery) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.add(replica);
+        }
+        return new ReplicaHealthMonitor(replicas, lagQuery, maxLagSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaHealthMonitor replicaHealthMonitor,
+                                 MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaHealthMonitor, meterRegistry);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+        replicaHealthMonitor.dataSources().forEach(replica -> targets.put(replica.getPoolName(), replica));
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReplicaRoutingInterceptor(Duration.ofSeconds(readYourWritesSeconds)));
+    }
+
+    /**
+     * A replica-routed cache load racing the invalidation of a change could cache the old row for
+     * the whole TTL, so the change is invalidated again once any usable replica must have caught up.
+     */
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        invalidationScheduler.schedule(() -> catalogCache.onBookChanged(event), maxLagSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        invalidationScheduler.shutdownNow();
+    }
+}
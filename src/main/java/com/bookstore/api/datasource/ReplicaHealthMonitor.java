@@ -0,0 +1,128 @@
+package com.bookstore.api.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Periodically checks each replica and takes it out of rotation when it fails the check or lags
+ * more than the configured maximum. The lag query should return seconds behind the primary, either
+ * as its first column or as {@code Seconds_Behind_Source} (e.g. {@code SHOW REPLICA STATUS}); a null
+ * lag means replication is stopped. Without a lag query only connectivity is checked.
+ */
+public class ReplicaHealthMonitor implements MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReplicaHealthMonitor(List<HikariDataSource> dataSources, String lagQuery, long maxLagSeconds) {
+        this.replicas = dataSources.stream().map(Replica::new).toList();
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    /**
+     * Lookup key of the next healthy replica in round-robin order, or null when none is usable.
+     */
+    String nextHealthy() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name();
+            }
+        }
+        return null;
+    }
+
+    List<HikariDataSource> dataSources() {
+        return replicas.stream().map(replica -> replica.dataSource).toList();
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.datasource.replicas.health-check-interval-ms:5000}")
+    public void check() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try {
+                replica.lagSeconds = lagQuery == null || lagQuery.isBlank() ? probe(replica) : lag(replica);
+                replica.healthy = replica.lagSeconds >= 0 && replica.lagSeconds <= maxLagSeconds;
+            } catch (RuntimeException ex) {
+                replica.lagSeconds = -1;
+                replica.healthy = false;
+                if (wasHealthy) {
+                    log.warn("Replica {} failed its health check, reads go elsewhere", replica.name(), ex);
+                }
+            }
+            if (wasHealthy != replica.healthy) {
+                log.info("Replica {} is now {} (lag {}s)", replica.name(), replica.healthy ? "in rotation" : "out of rotation",
+                        replica.lagSeconds);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name())
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private long probe(Replica replica) {
+        replica.jdbcTemplate.queryForObject("select 1", Integer.class);
+        return 0;
+    }
+
+    private long lag(Replica replica) {
+        List<Map<String, Object>> rows = replica.jdbcTemplate.queryForList(lagQuery);
+        if (rows.isEmpty()) {
+            return -1;
+        }
+        Map<String, Object> row = rows.get(0);
+        Object lag = row.containsKey("Seconds_Behind_Source") ? row.get("Seconds_Behind_Source")
+                : row.values().iterator().next();
+        return lag == null ? -1 : ((Number) lag).longValue();
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        // Out of rotation until the first check passes
+        private volatile boolean healthy;
+        private volatile long lagSeconds = -1;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        private String name() {
+            return dataSource.getPoolName();
+        }
+    }
+}
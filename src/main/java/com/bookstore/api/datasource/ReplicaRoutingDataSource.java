@@ -0,0 +1,52 @@
+package com.bookstore.api.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out replica connections when the current thread prefers a replica and is not inside a
+ * read-write transaction, and primary connections otherwise. Has to sit behind a
+ * {@code LazyConnectionDataSourceProxy}, so the choice is made at the first statement, once the
+ * transaction's read-only flag is known.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaHealthMonitor healthMonitor;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> routeCounters = new ConcurrentHashMap<>();
+
+    ReplicaRoutingDataSource(ReplicaHealthMonitor healthMonitor, MeterRegistry meterRegistry) {
+        this.healthMonitor = healthMonitor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!DataSourceRoute.isReplicaPreferred()) {
+            return count(PRIMARY, "primary");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return count(PRIMARY, "write");
+        }
+        String replica = healthMonitor.nextHealthy();
+        return replica != null ? count(replica, "replica") : count(PRIMARY, "fallback");
+    }
+
+    private String count(String target, String reason) {
+        routeCounters.computeIfAbsent(target + ':' + reason, key -> Counter.builder("datasource.route")
+                        .description("Connections handed out, by target pool and why it was chosen")
+                        .tag("target", target)
+                        .tag("reason", reason)
+                        .register(meterRegistry))
+                .increment();
+        return target;
+    }
+}
@@ -0,0 +1,12 @@
+package com.bookstore.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AnalyticsRebuildResult {
+    private long orders;
+    private int batches;
+    private long elapsedMillis;
+}
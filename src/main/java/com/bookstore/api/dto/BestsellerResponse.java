@@ -0,0 +1,15 @@
+package com.bookstore.api.dto;
+
+import com.bookstore.api.model.Money;
+import lombok.Data;
+
+@Data
+public class BestsellerResponse {
+    private Long bookId;
+    private String title;
+    private String author;
+    private String genre;
+    private long orderCount;
+    private long unitsSold;
+    private Money revenue;
+}
@@ -1,10 +1,16 @@
 package com.bookstore.api.dto;
 
+import com.bookstore.api.model.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class BookRequest {
     @NotBlank(message = "Title is required")
@@ -20,8 +26,9 @@ public class BookRequest {
     private String isbn;
 
     @NotNull(message = "Price is required")
-    @Positive(message = "Price must be greater than 0")
-    private Double price;
+    @DecimalMin(value = "0.01", message = "Price must be greater than 0")
+    @Digits(integer = 10, fraction = 2, message = "Price must have at most 2 decimal places")
+    private BigDecimal price;
 
     private String description;
 
@@ -39,10 +46,12 @@ public class BookResponse {
     private String author;
     private String genre;
     private String isbn;
-    private Double price;
+    private Money price;
     private String description;
     private Integer stockQuantity;
     private String imageUrl;
+    @JsonIgnore
+    private Long version;
 }
 
 @Data
@@ -51,6 +60,8 @@ public class BookSearchResponse {
     private String title;
     private String author;
     private String genre;
-    private Double price;
+    private Money price;
     private String imageUrl;
+    @JsonIgnore
+    private Long version;
 }
\ No newline at end of file
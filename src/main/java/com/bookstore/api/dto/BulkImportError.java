@@ -0,0 +1,12 @@
+package com.bookstore.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkImportError {
+    private long row;
+    private String isbn;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package com.bookstore.api.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkImportResult {
+    private long processed;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private boolean errorsTruncated;
+    private List<BulkImportError> errors = new ArrayList<>();
+}
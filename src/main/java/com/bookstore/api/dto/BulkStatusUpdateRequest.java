@@ -0,0 +1,16 @@
+package com.bookstore.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkStatusUpdateRequest {
+    @NotEmpty(message = "Updates are required")
+    @Size(max = 10000, message = "At most 10000 updates per request")
+    @Valid
+    private List<StatusUpdate> updates;
+}
@@ -0,0 +1,15 @@
+package com.bookstore.api.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkStatusUpdateResult {
+    private long updated;
+    private long unchanged;
+    private long rejected;
+    // One per requested update, in request order
+    private List<StatusUpdateOutcome> results = new ArrayList<>();
+}
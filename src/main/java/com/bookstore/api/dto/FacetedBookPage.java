@@ -0,0 +1,17 @@
+package com.bookstore.api.dto;
+
+import com.bookstore.api.search.BookFacetIndex;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FacetedBookPage {
+    private List<BookSearchResponse> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private BookFacetIndex.FacetCounts facets;
+}
@@ -1,6 +1,10 @@
 package com.bookstore.api.dto;
 
+import com.bookstore.api.model.Money;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
@@ -9,14 +13,17 @@ import java.util.List;
 @Data
 public class OrderRequest {
     @NotEmpty(message = "Order items cannot be empty")
-    private List<OrderItemRequest> items;
+    private List<@Valid OrderItemRequest> items;
 }
 
 @Data
 public class OrderItemRequest {
+    @NotNull(message = "Book id is required")
     private Long bookId;
 
+    @NotNull(message = "Quantity is required")
     @Positive(message = "Quantity must be greater than 0")
+    @Max(value = 10000, message = "Quantity must be at most 10000")
     private Integer quantity;
 }
 
@@ -26,7 +33,7 @@ public class OrderResponse {
     private String customerName;
     private String customerEmail;
     private List<OrderItemResponse> items;
-    private Double totalAmount;
+    private Money totalAmount;
     private String orderStatus;
     private String paymentStatus;
     private String orderDate;
@@ -34,10 +41,12 @@ public class OrderResponse {
 
 @Data
 public class OrderItemResponse {
+    private Long bookId;
     private String bookTitle;
+    private String isbn;
     private Integer quantity;
-    private Double price;
-    private Double subtotal;
+    private Money price;
+    private Money subtotal;
 }
 
 @Data
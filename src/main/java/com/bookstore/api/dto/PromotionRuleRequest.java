@@ -0,0 +1,27 @@
+package com.bookstore.api.dto;
+
+import com.bookstore.api.model.PromotionRule;
+import com.bookstore.api.model.User;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class PromotionRuleRequest {
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    @NotNull(message = "Type is required")
+    private PromotionRule.Type type;
+
+    // Omitted for rules that apply to every genre
+    private String genre;
+
+    private User.Tier tier;
+
+    private Integer percentOff;
+
+    private Integer buyQuantity;
+
+    private Integer freeQuantity;
+}
@@ -0,0 +1,15 @@
+package com.bookstore.api.dto;
+
+import com.bookstore.api.model.PromotionRule;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PromotionRuleSet {
+    // Quotes report the version they were priced with
+    private long version;
+    private List<PromotionRule> rules;
+}
@@ -0,0 +1,17 @@
+package com.bookstore.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PromotionRulesRequest {
+    // An empty list removes every promotion
+    @NotNull(message = "Rules are required")
+    @Size(max = 100000, message = "At most 100000 rules")
+    @Valid
+    private List<PromotionRuleRequest> rules;
+}
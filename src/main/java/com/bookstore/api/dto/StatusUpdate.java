@@ -0,0 +1,14 @@
+package com.bookstore.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class StatusUpdate {
+    @NotNull(message = "Order ID is required")
+    private Long id;
+
+    @NotBlank(message = "Status is required")
+    private String status;
+}
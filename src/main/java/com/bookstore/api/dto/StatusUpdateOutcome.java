@@ -0,0 +1,21 @@
+package com.bookstore.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StatusUpdateOutcome {
+    private Long id;
+    private Result result;
+    // The order's status once the update was applied or rejected; null if the order does not exist
+    private String status;
+
+    public enum Result {
+        UPDATED,
+        UNCHANGED,
+        ILLEGAL_TRANSITION,
+        UNKNOWN_STATUS,
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,10 @@
+package com.bookstore.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class UserTierRequest {
+    @NotBlank(message = "Tier is required")
+    private String tier;
+}
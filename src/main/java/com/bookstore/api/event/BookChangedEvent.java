@@ -0,0 +1,44 @@
+package com.bookstore.api.event;
+
+import com.bookstore.api.model.Book;
+
+/**
+ * Published after a change to a book has been committed. {@code before} and {@code after} hold the
+ * fields that decide which listings a book appears in and where; they are null when not relevant.
+ */
+public record BookChangedEvent(Type type, Long bookId, ListingFields before, ListingFields after) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK_CHANGED
+    }
+
+    public static BookChangedEvent created(Book book) {
+        return new BookChangedEvent(Type.CREATED, book.getId(), null, ListingFields.of(book));
+    }
+
+    public static BookChangedEvent updated(ListingFields before, Book book) {
+        return new BookChangedEvent(Type.UPDATED, book.getId(), before, ListingFields.of(book));
+    }
+
+    public static BookChangedEvent updated(Long bookId, ListingFields before, ListingFields after) {
+        return new BookChangedEvent(Type.UPDATED, bookId, before, after);
+    }
+
+    public static BookChangedEvent deleted(Book book) {
+        return new BookChangedEvent(Type.DELETED, book.getId(), ListingFields.of(book), null);
+    }
+
+    public static BookChangedEvent stockChanged(Long bookId) {
+        return new BookChangedEvent(Type.STOCK_CHANGED, bookId, null, null);
+    }
+
+    public record ListingFields(String title, String author, String genre, String isbn) {
+
+        public static ListingFields of(Book book) {
+            return new ListingFields(book.getTitle(), book.getAuthor(), book.getGenre(), book.getIsbn());
+        }
+    }
+}
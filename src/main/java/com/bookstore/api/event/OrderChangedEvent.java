@@ -0,0 +1,61 @@
+package com.bookstore.api.event;
+
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.OrderItem;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published after an order has been placed ({@code previousStatus} is null) or its status has
+ * changed. {@code lines} are only filled in when the change adds or removes the order from sales,
+ * i.e. on placement and on transitions into or out of CANCELLED.
+ */
+public record OrderChangedEvent(Long orderId, LocalDate orderDate, Order.OrderStatus previousStatus,
+                                Order.OrderStatus status, List<Line> lines) {
+
+    public record Line(Long bookId, String genre, int quantity, Money revenue) {
+    }
+
+    public static OrderChangedEvent placed(Order order) {
+        return new OrderChangedEvent(order.getId(), order.getOrderDate().toLocalDate(), null, order.getStatus(),
+                lines(order.getOrderItems()));
+    }
+
+    public static OrderChangedEvent statusChanged(Order order, Order.OrderStatus previousStatus) {
+        return statusChanged(order.getId(), order.getOrderDate(), previousStatus, order.getStatus(),
+                order.getOrderItems());
+    }
+
+    /**
+     * For changes made without loading the order's items; {@code items} are only read when the
+     * change adds or removes the order from sales.
+     */
+    public static OrderChangedEvent statusChanged(Long orderId, LocalDateTime orderDate,
+                                                  Order.OrderStatus previousStatus, Order.OrderStatus status,
+                                                  List<OrderItem> items) {
+        boolean salesChanged = countsAsSale(previousStatus) != countsAsSale(status);
+        return new OrderChangedEvent(orderId, orderDate.toLocalDate(), previousStatus, status,
+                salesChanged ? lines(items) : List.of());
+    }
+
+    /**
+     * +1 when the change adds the order to sales, -1 when it takes it out, 0 otherwise.
+     */
+    public int salesSign() {
+        return (countsAsSale(status) ? 1 : 0) - (countsAsSale(previousStatus) ? 1 : 0);
+    }
+
+    private static boolean countsAsSale(Order.OrderStatus status) {
+        return status != null && status != Order.OrderStatus.CANCELLED;
+    }
+
+    private static List<Line> lines(List<OrderItem> items) {
+        return items.stream()
+                .map(item -> new Line(item.getBook().getId(), item.getBook().getGenre(), item.getQuantity(),
+                        item.getPrice()))
+                .toList();
+    }
+}
@@ -0,0 +1,8 @@
+package com.bookstore.api.exception;
+
+public class FeedCapacityExceededException extends RuntimeException {
+
+    public FeedCapacityExceededException() {
+        super("Too many open order feeds, try again later");
+    }
+}
@@ -0,0 +1,8 @@
+package com.bookstore.api.exception;
+
+public class HashingCapacityExceededException extends RuntimeException {
+
+    public HashingCapacityExceededException() {
+        super("Server is busy, try again shortly");
+    }
+}
@@ -0,0 +1,8 @@
+package com.bookstore.api.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException() {
+        super("This Idempotency-Key was already used for a different order");
+    }
+}
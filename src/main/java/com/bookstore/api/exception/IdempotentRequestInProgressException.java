@@ -0,0 +1,8 @@
+package com.bookstore.api.exception;
+
+public class IdempotentRequestInProgressException extends RuntimeException {
+
+    public IdempotentRequestInProgressException() {
+        super("An order with this Idempotency-Key is still being placed, try again shortly");
+    }
+}
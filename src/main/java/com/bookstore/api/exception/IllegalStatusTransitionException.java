@@ -0,0 +1,10 @@
+package com.bookstore.api.exception;
+
+import com.bookstore.api.model.Order;
+
+public class IllegalStatusTransitionException extends RuntimeException {
+
+    public IllegalStatusTransitionException(Order.OrderStatus from, Order.OrderStatus to) {
+        super("Order status cannot change from " + from + " to " + to);
+    }
+}
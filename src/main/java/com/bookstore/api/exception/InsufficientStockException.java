@@ -0,0 +1,8 @@
+package com.bookstore.api.exception;
+
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(String bookTitle) {
+        super("Insufficient stock for book: " + bookTitle);
+    }
+}
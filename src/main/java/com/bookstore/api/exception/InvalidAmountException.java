@@ -0,0 +1,10 @@
+package com.bookstore.api.exception;
+
+import java.math.BigDecimal;
+
+public class InvalidAmountException extends RuntimeException {
+
+    public InvalidAmountException(BigDecimal amount) {
+        super("Amount out of range: " + amount);
+    }
+}
@@ -0,0 +1,8 @@
+package com.bookstore.api.exception;
+
+public class InvalidPromotionRuleException extends RuntimeException {
+
+    public InvalidPromotionRuleException(String name, String problem) {
+        super("Invalid promotion rule '" + name + "': " + problem);
+    }
+}
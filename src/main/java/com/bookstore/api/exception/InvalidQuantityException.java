@@ -0,0 +1,8 @@
+package com.bookstore.api.exception;
+
+public class InvalidQuantityException extends RuntimeException {
+
+    public InvalidQuantityException(Long bookId) {
+        super("Quantity out of range for book: " + bookId);
+    }
+}
@@ -0,0 +1,8 @@
+package com.bookstore.api.exception;
+
+public class UnsupportedFormatException extends RuntimeException {
+
+    public UnsupportedFormatException(String format) {
+        super("Unsupported format: " + format + "; use csv or ndjson");
+    }
+}
@@ -0,0 +1,267 @@
+package com.bookstore.api.feed;
+
+import com.bookstore.api.event.OrderChangedEvent;
+import com.bookstore.api.exception.FeedCapacityExceededException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes committed order changes to admin dashboards as server-sent events. Each change is
+ * serialized once and queued to every subscriber, so the cost of a dashboard is a queue slot and a
+ * socket write rather than a database query. Subscribers are written to on virtual threads, so a
+ * slow connection only holds up itself; when its bounded queue fills up the slow-consumer policy
+ * either disconnects it or drops its oldest pending event.
+ * <p>
+ * The last events are kept for replay, so a client reconnecting with {@code Last-Event-ID} gets
+ * what it missed. Event ids are only meaningful to the instance that issued them; a client whose
+ * id can no longer be replayed gets a {@code reset} event and should reload through the REST API.
+ */
+@Component
+public class OrderFeed implements MeterBinder {
+
+    public enum SlowConsumerPolicy {
+        DISCONNECT,
+        DROP_OLDEST
+    }
+
+    private static final String PLACED = "order-placed";
+    private static final String STATUS_CHANGED = "order-status-changed";
+    private static final String RESET = "reset";
+
+    private final ObjectMapper objectMapper;
+    private final int replaySize;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+
+    // Distinguishes ids issued before a restart, whose sequence numbers would otherwise be reused
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Deque<FeedEvent> recent = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("order-feed-", 0).factory());
+    private long sequence;
+
+    private Counter disconnected;
+    private Counter dropped;
+
+    public OrderFeed(ObjectMapper objectMapper,
+                     @Value("${app.order-feed.replay-size:10000}") int replaySize,
+                     @Value("${app.order-feed.buffer-size:256}") int bufferSize,
+                     @Value("${app.order-feed.max-subscribers:500}") int maxSubscribers,
+                     @Value("${app.order-feed.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                     @Value("${app.order-feed.slow-consumer-policy:DISCONNECT}") SlowConsumerPolicy slowConsumerPolicy) {
+        this.objectMapper = objectMapper;
+        this.replaySize = replaySize;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    private record FeedEvent(long sequence, String id, String name, String data) {
+
+        SseEmitter.SseEventBuilder toSse() {
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+            return id != null ? event.id(id) : event;
+        }
+    }
+
+    /**
+     * Opens a stream for a dashboard, first replaying the events after {@code lastEventId} when
+     * it is given and still known.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new FeedCapacityExceededException();
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+
+        // Holding the lock keeps events published meanwhile from being missed or sent twice
+        synchronized (this) {
+            if (lastEventId != null) {
+                List<FeedEvent> missed = missedSince(lastEventId);
+                if (missed == null || missed.size() > bufferSize) {
+                    subscriber.offer(new FeedEvent(0, null, RESET, "{}"));
+                } else {
+                    missed.forEach(subscriber::offer);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderChanged(OrderChangedEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize order event", ex);
+        }
+        String name = event.previousStatus() == null ? PLACED : STATUS_CHANGED;
+        synchronized (this) {
+            long next = ++sequence;
+            FeedEvent feedEvent = new FeedEvent(next, epoch + "-" + next, name, data);
+            recent.addLast(feedEvent);
+            if (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+            subscribers.forEach(subscriber -> subscriber.offer(feedEvent));
+        }
+    }
+
+    // Comments keep proxies from closing idle streams and reveal dashboards that went away
+    @Scheduled(fixedDelayString = "${app.order-feed.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("order.feed.subscribers", subscribers, Set::size)
+                .description("Open order feed streams")
+                .register(registry);
+        disconnected = Counter.builder("order.feed.slow.consumers")
+                .description("Order feed streams closed because they fell behind")
+                .register(registry);
+        dropped = Counter.builder("order.feed.dropped.events")
+                .description("Order feed events dropped for subscribers that fell behind")
+                .register(registry);
+    }
+
+    // Null when the id was issued before a restart or has already left the replay window
+    private List<FeedEvent> missedSince(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        long lastSeen;
+        try {
+            lastSeen = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        long oldest = recent.isEmpty() ? sequence + 1 : recent.peekFirst().sequence();
+        if (lastSeen > sequence || lastSeen < oldest - 1) {
+            return null;
+        }
+        List<FeedEvent> missed = new ArrayList<>();
+        for (FeedEvent event : recent) {
+            if (event.sequence() > lastSeen) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(FeedEvent event) {
+            while (!queue.offer(event)) {
+                if (slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT) {
+                    increment(disconnected);
+                    close();
+                    emitter.complete();
+                    return;
+                }
+                if (queue.poll() != null) {
+                    increment(dropped);
+                }
+            }
+            drainLater();
+        }
+
+        void heartbeat() {
+            // A full queue means the stream is busy, so there is nothing to keep alive
+            if (queue.offer(SseEmitter.event().comment("heartbeat"))) {
+                drainLater();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        private void drainLater() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Object next;
+                while (!closed && (next = queue.poll()) != null) {
+                    emitter.send(next instanceof FeedEvent event ? event.toSse() : (SseEmitter.SseEventBuilder) next);
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // The client went away; the emitter's callbacks finish the cleanup
+                close();
+                emitter.completeWithError(ex);
+            } finally {
+                draining.set(false);
+            }
+            if (!queue.isEmpty()) {
+                drainLater();
+            }
+        }
+
+        private void increment(Counter counter) {
+            if (counter != null) {
+                counter.increment();
+            }
+        }
+    }
+}
@@ -8,7 +8,10 @@ import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+    @Index(name = "idx_books_title_id", columnList = "title, id"),
+    @Index(name = "idx_books_genre_title_id", columnList = "genre, title, id")
+})
 public class Book {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,7 +32,8 @@ public class Book {
 
     @NotNull(message = "Price is required")
     @Positive(message = "Price must be greater than 0")
-    private Double price;
+    @Column(precision = 12, scale = 2)
+    private Money price;
 
     @Column(columnDefinition = "TEXT")
     private String description;
@@ -39,4 +43,9 @@ public class Book {
     private Integer stockQuantity;
 
     private String imageUrl;
+
+    // Also bumped by the bulk stock and import updates; drives the catalog ETags
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Sales rollup per book, maintained by {@code SalesRollups}. Cancelled orders are not counted.
+ */
+@Data
+@Entity
+@Table(name = "sales_by_book", indexes = @Index(name = "idx_sales_by_book_units", columnList = "units_sold"))
+public class BookSales {
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    private long orderCount;
+
+    private long unitsSold;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money revenue = Money.ZERO;
+}
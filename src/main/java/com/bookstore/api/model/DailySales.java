@@ -0,0 +1,24 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Sales rollup per order date, maintained by {@code SalesRollups}. Cancelled orders are not counted.
+ */
+@Data
+@Entity
+@Table(name = "sales_by_day")
+public class DailySales {
+    @Id
+    private LocalDate salesDate;
+
+    private long orderCount;
+
+    private long unitsSold;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money revenue = Money.ZERO;
+}
@@ -0,0 +1,32 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which instance may run a dispatcher that must not run on two instances at once. The owner renews
+ * the lease while it works; once it has expired any instance may take it over.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "dispatcher_leases")
+public class DispatcherLease {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(length = 64)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public DispatcherLease(String name, LocalDateTime expiresAt) {
+        this.name = name;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Sales rollup per genre, maintained by {@code SalesRollups}. Cancelled orders are not counted.
+ */
+@Data
+@Entity
+@Table(name = "sales_by_genre")
+public class GenreSales {
+    @Id
+    private String genre;
+
+    private long orderCount;
+
+    private long unitsSold;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money revenue = Money.ZERO;
+}
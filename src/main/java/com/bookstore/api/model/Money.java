@@ -0,0 +1,75 @@
+package com.bookstore.api.model;
+
+import com.bookstore.api.exception.InvalidAmountException;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of cents, so sums and line totals are exact. Stored as a
+ * DECIMAL with two decimals (see {@link MoneyConverter}) and written to JSON as a plain number,
+ * e.g. {@code 19.99}. Hot loops should add up {@link #cents()} and wrap the result once.
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    // Whole digits that always fit a long once multiplied into cents
+    private static final int MAX_INTEGER_DIGITS = 16;
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Exact for amounts with up to two decimals; finer amounts, such as values that went through
+     * a double, are rounded half up to the cent. The magnitude is checked before rescaling, so an
+     * exponent like {@code 1E-999999999} costs nothing, and amounts with more than 16 whole digits
+     * throw {@link InvalidAmountException}.
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money of(BigDecimal amount) {
+        int integerDigits = amount.precision() - amount.scale();
+        if (integerDigits > MAX_INTEGER_DIGITS) {
+            throw new InvalidAmountException(amount);
+        }
+        // Below a thousandth, so it rounds to zero
+        if (integerDigits < -2) {
+            return ZERO;
+        }
+        return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money times(int quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -9,13 +9,16 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_order_date_id", columnList = "order_date, id"),
+    @Index(name = "idx_orders_user_order_date_id", columnList = "user_id, order_date, id")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -30,13 +33,26 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private PaymentStatus paymentStatus = PaymentStatus.PENDING;
 
-    private Double totalAmount = 0.0;
+    @Column(precision = 14, scale = 2)
+    private Money totalAmount = Money.ZERO;
 
     public enum OrderStatus {
         PENDING,
         SHIPPED,
         DELIVERED,
-        CANCELLED
+        CANCELLED;
+
+        /**
+         * Whether an order may move from this status to {@code next}. Orders can only be cancelled
+         * before they ship; DELIVERED and CANCELLED are final.
+         */
+        public boolean canTransitionTo(OrderStatus next) {
+            return switch (this) {
+                case PENDING -> next == SHIPPED || next == CANCELLED;
+                case SHIPPED -> next == DELIVERED;
+                case DELIVERED, CANCELLED -> false;
+            };
+        }
     }
 
     public enum PaymentStatus {
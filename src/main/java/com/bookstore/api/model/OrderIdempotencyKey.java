@@ -0,0 +1,49 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The order placed for a client's Idempotency-Key. Written in the order's transaction, so the key
+ * exists exactly when the order does; the unique constraint lets only one of several concurrent
+ * submissions with the same key commit.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "order_idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_order_idempotency_key", columnNames = {"user_id", "idempotency_key"})
+}, indexes = {
+    @Index(name = "idx_order_idempotency_created", columnList = "created_at")
+})
+public class OrderIdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // Hash of the ordered items, to refuse the same key being reused for a different order
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public OrderIdempotencyKey(Long userId, String idempotencyKey, String requestHash, Long orderId) {
+        this.userId = userId;
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+        this.orderId = orderId;
+    }
+}
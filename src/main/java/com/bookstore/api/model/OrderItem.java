@@ -4,6 +4,10 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
+/**
+ * An order line. Title, ISBN and unit price are copied from the book when the order is placed, so
+ * order history shows what was bought at the price paid and never has to load the book.
+ */
 @Data
 @Entity
 @Table(name = "order_items")
@@ -12,23 +16,45 @@ public class OrderItem {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
 
     @Positive(message = "Quantity must be greater than 0")
     private Integer quantity;
 
-    private Double price;
+    // Line total: unit price times quantity, as wide as the order total
+    @Column(precision = 14, scale = 2)
+    private Money price;
+
+    // Nullable until OrderItemSnapshotBackfill has filled in lines written before these columns
+    @Column(updatable = false)
+    private String bookTitle;
+
+    @Column(updatable = false)
+    private String bookIsbn;
+
+    @Column(updatable = false, precision = 12, scale = 2)
+    private Money unitPrice;
 
     @PrePersist
-    public void calculatePrice() {
-        if (book != null && quantity != null) {
-            this.price = book.getPrice() * quantity;
+    public void snapshotBook() {
+        if (book != null) {
+            if (bookTitle == null) {
+                bookTitle = book.getTitle();
+                bookIsbn = book.getIsbn();
+            }
+            if (unitPrice == null) {
+                unitPrice = book.getPrice();
+            }
+        }
+        // OrderService already sets the line total while adding up the order
+        if (price == null && unitPrice != null && quantity != null) {
+            this.price = unitPrice.times(quantity);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order event waiting to be delivered to one handler. Written in the same transaction as the
+ * order change and deleted once the handler has processed it.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "order_outbox", indexes = {
+    @Index(name = "idx_order_outbox_ready", columnList = "dead, next_attempt_at, id"),
+    @Index(name = "idx_order_outbox_order", columnList = "order_id, id")
+})
+public class OrderOutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String handler;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = createdAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    // Gave up after app.outbox.max-attempts; kept for inspection
+    private boolean dead;
+
+    public OrderOutboxEntry(String handler, Long orderId, String payload) {
+        this.handler = handler;
+        this.orderId = orderId;
+        this.payload = payload;
+    }
+}
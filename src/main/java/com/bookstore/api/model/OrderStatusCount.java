@@ -0,0 +1,18 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Number of orders currently in each status, maintained by {@code SalesRollups}.
+ */
+@Data
+@Entity
+@Table(name = "orders_by_status")
+public class OrderStatusCount {
+    @Id
+    @Enumerated(EnumType.STRING)
+    private Order.OrderStatus status;
+
+    private long orderCount;
+}
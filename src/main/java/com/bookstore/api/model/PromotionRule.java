@@ -0,0 +1,44 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * A promotion applied by {@code PricingEngine}. Which fields matter depends on the type; a rule
+ * without a genre applies to every genre. Rules are only ever replaced as a whole set.
+ */
+@Data
+@Entity
+@Table(name = "promotion_rules")
+public class PromotionRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    private String genre;
+
+    @Enumerated(EnumType.STRING)
+    private User.Tier tier;
+
+    private Integer percentOff;
+
+    private Integer buyQuantity;
+
+    private Integer freeQuantity;
+
+    public enum Type {
+        // percentOff off every line in the genre
+        GENRE_DISCOUNT,
+        // For every buyQuantity + freeQuantity units of a book in the genre, freeQuantity are free
+        BUY_X_GET_Y,
+        // percentOff off the whole cart for customers of the tier, on top of line promotions
+        TIER_DISCOUNT
+    }
+}
@@ -0,0 +1,34 @@
+package com.bookstore.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stock change that has been committed but not yet applied to {@code books.stock_quantity}.
+ * Negative deltas are reservations, positive ones are releases.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "stock_journal")
+public class StockJournalEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public StockJournalEntry(Long bookId, Integer delta) {
+        this.bookId = bookId;
+        this.delta = delta;
+    }
+}
@@ -1,13 +1,16 @@
 package com.bookstore.api.model;
 
+import com.bookstore.api.security.UserChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,8 +30,20 @@ public class User {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Customer tier for TIER_DISCOUNT promotions
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @ColumnDefault("'STANDARD'")
+    private Tier tier = Tier.STANDARD;
+
     public enum Role {
         CUSTOMER,
         ADMIN
     }
+
+    public enum Tier {
+        STANDARD,
+        SILVER,
+        GOLD
+    }
 }
\ No newline at end of file
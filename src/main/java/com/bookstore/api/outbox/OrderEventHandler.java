@@ -0,0 +1,25 @@
+package com.bookstore.api.outbox;
+
+import com.bookstore.api.event.OrderChangedEvent;
+
+/**
+ * Consumer of committed order changes, fed from the order outbox. Delivery is at least once and
+ * in order per order id; throwing makes the event be retried later.
+ */
+public interface OrderEventHandler {
+
+    /**
+     * Stable identifier stored with each outbox entry; renaming it orphans undelivered entries.
+     */
+    String name();
+
+    void handle(OrderChangedEvent event);
+
+    /**
+     * Called after each batch, in the transaction that deletes the batch's delivered entries.
+     * Handlers that buffer events store them here, so they are kept exactly when their entries are
+     * gone. Throwing rolls the batch back and it is delivered again.
+     */
+    default void completeBatch() {
+    }
+}
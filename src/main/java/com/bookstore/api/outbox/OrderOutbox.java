@@ -0,0 +1,52 @@
+package com.bookstore.api.outbox;
+
+import com.bookstore.api.event.OrderChangedEvent;
+import com.bookstore.api.model.OrderOutboxEntry;
+import com.bookstore.api.repository.OrderOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Records order events in the caller's transaction, one entry per handler so each handler is
+ * retried and ordered on its own. {@link OrderOutboxDispatcher} delivers them after commit. The
+ * event is also published locally for after-commit listeners that only serve this instance,
+ * such as the live order feed.
+ */
+@Component
+public class OrderOutbox {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final List<OrderEventHandler> handlers;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OrderOutbox(OrderOutboxRepository outboxRepository,
+                       ObjectMapper objectMapper,
+                       List<OrderEventHandler> handlers,
+                       ApplicationEventPublisher eventPublisher) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.handlers = handlers;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OrderChangedEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize order event", ex);
+        }
+        outboxRepository.saveAll(handlers.stream()
+                .map(handler -> new OrderOutboxEntry(handler.name(), event.orderId(), payload))
+                .toList());
+        eventPublisher.publishEvent(event);
+    }
+}
@@ -0,0 +1,279 @@
+package com.bookstore.api.outbox;
+
+import com.bookstore.api.event.OrderChangedEvent;
+import com.bookstore.api.model.DispatcherLease;
+import com.bookstore.api.model.OrderOutboxEntry;
+import com.bookstore.api.repository.DispatcherLeaseRepository;
+import com.bookstore.api.repository.OrderOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Polls the order outbox and hands entries to their handlers on a bounded pool. Entries for the
+ * same handler and order run one after another in id order on one task; different orders run in
+ * parallel. A failed entry is retried with exponential backoff and holds back the later entries of
+ * its handler and order until it succeeds or is given up on.
+ * <p>
+ * Only one instance dispatches at a time: the others would deliver the same entries again and
+ * could overtake each other within an order. The active instance holds a lease in
+ * {@code dispatcher_leases} and renews it before every batch; the others skip their polls until it
+ * has not been renewed for {@code app.outbox.lease-seconds}, then one of them takes over.
+ */
+@Component
+public class OrderOutboxDispatcher implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxDispatcher.class);
+    private static final String LEASE = "order-outbox";
+
+    private final OrderOutboxRepository outboxRepository;
+    private final DispatcherLeaseRepository leaseRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, OrderEventHandler> handlers;
+    private final ThreadPoolExecutor executor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration leaseDuration;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // A second poll running concurrently would deliver the same entries twice
+    private final Lock dispatchLock = new ReentrantLock();
+    private MeterRegistry meterRegistry;
+
+    public OrderOutboxDispatcher(OrderOutboxRepository outboxRepository,
+                                 DispatcherLeaseRepository leaseRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 List<OrderEventHandler> handlers,
+                                 @Value("${app.outbox.threads:4}") int threads,
+                                 @Value("${app.outbox.batch-size:500}") int batchSize,
+                                 @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                                 @Value("${app.outbox.initial-backoff-ms:500}") long initialBackoffMs,
+                                 @Value("${app.outbox.max-backoff-ms:300000}") long maxBackoffMs,
+                                 @Value("${app.outbox.lease-seconds:30}") long leaseSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.leaseRepository = leaseRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.handlers = handlers.stream().collect(Collectors.toMap(OrderEventHandler::name, Function.identity()));
+        // The queue holds at most one task per entry of a batch; the caller runs any overflow itself
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize),
+                Thread.ofPlatform().name("order-outbox-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        new ExecutorServiceMetrics(executor, "order.outbox", List.of()).bindTo(registry);
+        registry.gauge("order.outbox.pending", outboxRepository, OrderOutboxRepository::countByDeadFalse);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void poll() {
+        if (dispatchLock.tryLock()) {
+            try {
+                dispatchDue();
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Delivers everything currently due and returns the number of entries attempted. Waits for a
+     * poll that is already running, and delivers nothing while another instance holds the lease.
+     */
+    public int dispatch() {
+        dispatchLock.lock();
+        try {
+            return dispatchDue();
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        // Lets another instance take over without waiting for the lease to expire
+        try {
+            leaseRepository.release(LEASE, instanceId);
+        } catch (RuntimeException ex) {
+            log.warn("Could not release the order outbox lease", ex);
+        }
+    }
+
+    private int dispatchDue() {
+        int attempted = 0;
+        int batch;
+        // A batch with blocked entries comes back short, so blocked entries alone cannot spin this loop
+        do {
+            if (!holdLease()) {
+                break;
+            }
+            batch = dispatchBatch();
+            attempted += batch;
+        } while (batch == batchSize);
+        return attempted;
+    }
+
+    /**
+     * Takes or renews the lease for one more batch. The lease has to outlast the delivery of a
+     * batch, or another instance may take over while this one is still delivering.
+     */
+    private boolean holdLease() {
+        LocalDateTime now = LocalDateTime.now();
+        if (leaseRepository.acquire(LEASE, instanceId, now, now.plus(leaseDuration)) == 1) {
+            return true;
+        }
+        if (leaseRepository.existsById(LEASE)) {
+            return false;
+        }
+        try {
+            leaseRepository.saveAndFlush(new DispatcherLease(LEASE, now));
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance created it first
+        }
+        return leaseRepository.acquire(LEASE, instanceId, now, now.plus(leaseDuration)) == 1;
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderOutboxEntry> ready = outboxRepository.findReady(now, PageRequest.of(0, batchSize));
+        if (ready.isEmpty()) {
+            return 0;
+        }
+        Set<String> blocked = outboxRepository.findBackingOff(now,
+                        ready.stream().map(OrderOutboxEntry::getOrderId).collect(Collectors.toSet())).stream()
+                .map(OrderOutboxDispatcher::sequenceKey)
+                .collect(Collectors.toSet());
+
+        Map<String, List<OrderOutboxEntry>> sequences = new LinkedHashMap<>();
+        for (OrderOutboxEntry entry : ready) {
+            String key = sequenceKey(entry);
+            if (!blocked.contains(key)) {
+                sequences.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        ConcurrentLinkedQueue<Long> delivered = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<OrderOutboxEntry> failed = new ConcurrentLinkedQueue<>();
+        CompletableFuture.allOf(sequences.values().stream()
+                        .map(sequence -> CompletableFuture.runAsync(() -> deliver(sequence, delivered, failed), executor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        // Deleting after delivery means a crash in between redelivers: at least once. Handlers that
+        // buffer what they were given store it in the same transaction, so for them it is exactly once
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                handlers.values().forEach(OrderEventHandler::completeBatch);
+                if (!delivered.isEmpty() && outboxRepository.deleteByIds(delivered) != delivered.size()
+                        || !failed.isEmpty() && outboxRepository.countByIdIn(
+                                failed.stream().map(OrderOutboxEntry::getId).toList()) != failed.size()) {
+                    throw new IllegalStateException("Outbox entries were removed during delivery");
+                }
+                outboxRepository.saveAll(failed);
+            });
+        } catch (RuntimeException ex) {
+            // Such as entries taken over by a SalesRollups rebuild; whatever is left is delivered again
+            log.warn("Could not complete an outbox batch, redelivering its remaining entries", ex);
+        }
+        return delivered.size() + failed.size();
+    }
+
+    private void deliver(List<OrderOutboxEntry> sequence, ConcurrentLinkedQueue<Long> delivered,
+                         ConcurrentLinkedQueue<OrderOutboxEntry> failed) {
+        for (OrderOutboxEntry entry : sequence) {
+            OrderEventHandler handler = handlers.get(entry.getHandler());
+            try {
+                if (handler == null) {
+                    throw new IllegalStateException("No order event handler named " + entry.getHandler());
+                }
+                handler.handle(objectMapper.readValue(entry.getPayload(), OrderChangedEvent.class));
+                delivered.add(entry.getId());
+                count(entry.getHandler(), "success");
+            } catch (Exception ex) {
+                failed.add(scheduleRetry(entry, ex));
+                count(entry.getHandler(), entry.isDead() ? "dead" : "retry");
+                // Later entries of this order wait for this one
+                return;
+            }
+        }
+    }
+
+    private OrderOutboxEntry scheduleRetry(OrderOutboxEntry entry, Exception ex) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(truncate(ex.toString()));
+        if (attempts >= maxAttempts) {
+            entry.setDead(true);
+            log.error("Giving up on outbox entry {} for order {} after {} attempts",
+                    entry.getId(), entry.getOrderId(), attempts, ex);
+        } else {
+            Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+            entry.setNextAttemptAt(LocalDateTime.now().plus(backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff));
+            log.warn("Outbox entry {} for order {} failed (attempt {}), retrying", entry.getId(), entry.getOrderId(),
+                    attempts, ex);
+        }
+        return entry;
+    }
+
+    private void count(String handler, String outcome) {
+        if (meterRegistry != null) {
+            Counter.builder("order.outbox.deliveries")
+                    .tag("handler", handler)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private static String sequenceKey(OrderOutboxEntry entry) {
+        return entry.getHandler() + ':' + entry.getOrderId();
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
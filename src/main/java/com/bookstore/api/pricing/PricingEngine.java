@@ -0,0 +1,176 @@
+package com.bookstore.api.pricing;
+
+import com.bookstore.api.exception.InvalidQuantityException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.PromotionRule;
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.PromotionRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prices carts from promotion rules held in memory, for quotes and placed orders alike. A cart is
+ * priced in one pass over its lines without database access: each line gets the better of its
+ * genre's discount and buy-x-get-y deals, then the customer's tier discount comes off what is
+ * left. Discounts are rounded down to the cent per line, so a total always equals its lines.
+ * <p>
+ * Rule sets are replaced as a whole. A new set is compiled before it is swapped in with a single
+ * reference write, so every cart is priced against one complete set; other instances load it
+ * within {@code app.pricing.reload-interval-ms}.
+ */
+@Component
+public class PricingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingEngine.class);
+
+    private final PromotionRuleRepository ruleRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile RuleSet rules = RuleSet.EMPTY;
+    // Keeps a reload that read the previous set from swapping it back in over a replacement
+    private final Lock updateLock = new ReentrantLock();
+
+    public PricingEngine(PromotionRuleRepository ruleRepository, PlatformTransactionManager transactionManager) {
+        this.ruleRepository = ruleRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record CartLine(Book book, int quantity) {
+    }
+
+    /**
+     * One cart line: the list amount, the discount taken off it and what is left to pay, with the
+     * names of the promotions that made up the discount.
+     */
+    public record LineQuote(Long bookId, int quantity, Money unitPrice, Money listAmount, Money discount,
+                            Money total, List<String> promotions) {
+    }
+
+    public record Quote(List<LineQuote> lines, Money subtotal, Money discount, Money total, long ruleSetVersion) {
+    }
+
+    /**
+     * Prices the lines in order; the quote has one line per cart line. Throws
+     * {@link InvalidQuantityException} when an amount would not fit in a long.
+     */
+    public Quote quote(User.Tier tier, List<CartLine> cart) {
+        RuleSet current = rules;
+        RuleSet.Discount tierDiscount = current.tierDiscount(tier);
+        List<LineQuote> lines = new ArrayList<>(cart.size());
+        long subtotal = 0;
+        long discount = 0;
+        for (CartLine line : cart) {
+            try {
+                Book book = line.book();
+                long unitCents = book.getPrice().cents();
+                long listCents = Math.multiplyExact(unitCents, line.quantity());
+
+                RuleSet.LineRules lineRules = current.lineRules(book.getGenre());
+                long saving = 0;
+                String promotion = null;
+                if (lineRules.discount() != null) {
+                    saving = percentOf(listCents, lineRules.discount().percentOff());
+                    promotion = lineRules.discount().name();
+                }
+                for (RuleSet.Deal deal : lineRules.deals()) {
+                    long freeUnits = (long) (line.quantity() / (deal.buy() + deal.free())) * deal.free();
+                    long dealSaving = Math.multiplyExact(freeUnits, unitCents);
+                    if (dealSaving > saving) {
+                        saving = dealSaving;
+                        promotion = deal.name();
+                    }
+                }
+                if (saving == 0) {
+                    promotion = null;
+                }
+                long tierSaving = tierDiscount != null ? percentOf(listCents - saving, tierDiscount.percentOff()) : 0;
+                long lineDiscount = saving + tierSaving;
+
+                lines.add(new LineQuote(book.getId(), line.quantity(), book.getPrice(), Money.ofCents(listCents),
+                        Money.ofCents(lineDiscount), Money.ofCents(listCents - lineDiscount),
+                        promotions(promotion, tierSaving > 0 ? tierDiscount.name() : null)));
+                subtotal = Math.addExact(subtotal, listCents);
+                discount = Math.addExact(discount, lineDiscount);
+            } catch (ArithmeticException ex) {
+                // Too many copies, or too large a cart, to count in cents
+                throw new InvalidQuantityException(line.book().getId());
+            }
+        }
+        return new Quote(lines, Money.ofCents(subtotal), Money.ofCents(discount), Money.ofCents(subtotal - discount),
+                current.version());
+    }
+
+    /**
+     * Replaces every promotion rule in one transaction and prices with the new set once it has
+     * committed. Returns the new rule set version. Nothing changes if any rule is invalid.
+     */
+    public long replaceRules(List<PromotionRule> promotionRules) {
+        promotionRules.forEach(RuleSet::validate);
+        updateLock.lock();
+        try {
+            RuleSet replaced = transactionTemplate.execute(status -> {
+                ruleRepository.deleteAllInBatch();
+                List<PromotionRule> saved = ruleRepository.saveAll(promotionRules);
+                return RuleSet.compile(saved, version(saved));
+            });
+            rules = replaced;
+            log.info("Replaced promotion rules with {} rules, version {}", promotionRules.size(), replaced.version());
+            return replaced.version();
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public long version() {
+        return rules.version();
+    }
+
+    // Cheap when nothing changed: one max(id) query
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.pricing.reload-interval-ms:10000}")
+    public void reload() {
+        updateLock.lock();
+        try {
+            if (ruleRepository.findMaxId() == rules.version()) {
+                return;
+            }
+            List<PromotionRule> loaded = ruleRepository.findAll();
+            rules = RuleSet.compile(loaded, version(loaded));
+            log.info("Loaded {} promotion rules, version {}", loaded.size(), rules.version());
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    // Used directly by tests and benchmarks, which price without a database
+    void load(List<PromotionRule> promotionRules, long version) {
+        rules = RuleSet.compile(promotionRules, version);
+    }
+
+    private static long version(List<PromotionRule> promotionRules) {
+        return promotionRules.stream().mapToLong(PromotionRule::getId).max().orElse(0);
+    }
+
+    private static long percentOf(long cents, int percent) {
+        return Math.multiplyExact(cents, percent) / 100;
+    }
+
+    private static List<String> promotions(String line, String tier) {
+        if (line == null) {
+            return tier == null ? List.of() : List.of(tier);
+        }
+        return tier == null ? List.of(line) : List.of(line, tier);
+    }
+}
@@ -0,0 +1,129 @@
+package com.bookstore.api.pricing;
+
+import com.bookstore.api.exception.InvalidPromotionRuleException;
+import com.bookstore.api.model.PromotionRule;
+import com.bookstore.api.model.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Promotion rules compiled for pricing. Each genre gets its best percentage discount and its
+ * distinct buy-x-get-y deals, with the rules for all genres already folded in, and each tier its
+ * best discount; pricing a line is then one map lookup. Immutable once built.
+ */
+final class RuleSet {
+
+    static final RuleSet EMPTY = compile(List.of(), 0);
+
+    record Discount(String name, int percentOff) {
+    }
+
+    record Deal(String name, int buy, int free) {
+    }
+
+    record LineRules(Discount discount, Deal[] deals) {
+    }
+
+    private final long version;
+    private final Map<String, LineRules> byGenre;
+    // For genres no rule names: only the rules without a genre apply
+    private final LineRules otherGenres;
+    private final Discount[] byTier;
+
+    private RuleSet(long version, Map<String, LineRules> byGenre, LineRules otherGenres, Discount[] byTier) {
+        this.version = version;
+        this.byGenre = byGenre;
+        this.otherGenres = otherGenres;
+        this.byTier = byTier;
+    }
+
+    long version() {
+        return version;
+    }
+
+    LineRules lineRules(String genre) {
+        LineRules rules = genre != null ? byGenre.get(genre) : null;
+        return rules != null ? rules : otherGenres;
+    }
+
+    Discount tierDiscount(User.Tier tier) {
+        return tier != null ? byTier[tier.ordinal()] : null;
+    }
+
+    static RuleSet compile(List<PromotionRule> rules, long version) {
+        Map<String, List<PromotionRule>> genreRules = new HashMap<>();
+        List<PromotionRule> allGenres = new ArrayList<>();
+        Discount[] byTier = new Discount[User.Tier.values().length];
+        for (PromotionRule rule : rules) {
+            validate(rule);
+            if (rule.getType() == PromotionRule.Type.TIER_DISCOUNT) {
+                int tier = rule.getTier().ordinal();
+                if (byTier[tier] == null || byTier[tier].percentOff() < rule.getPercentOff()) {
+                    byTier[tier] = new Discount(rule.getName(), rule.getPercentOff());
+                }
+            } else if (rule.getGenre() == null) {
+                allGenres.add(rule);
+            } else {
+                genreRules.computeIfAbsent(rule.getGenre(), genre -> new ArrayList<>()).add(rule);
+            }
+        }
+
+        Map<String, LineRules> byGenre = new HashMap<>();
+        genreRules.forEach((genre, own) -> byGenre.put(genre, lineRules(own, allGenres)));
+        return new RuleSet(version, byGenre, lineRules(List.of(), allGenres), byTier);
+    }
+
+    static void validate(PromotionRule rule) {
+        String name = rule.getName();
+        if (name == null || name.isBlank()) {
+            throw new InvalidPromotionRuleException(String.valueOf(name), "a name is required");
+        }
+        if (rule.getType() == null) {
+            throw new InvalidPromotionRuleException(name, "a type is required");
+        }
+        switch (rule.getType()) {
+            case GENRE_DISCOUNT -> requirePercentOff(rule);
+            case TIER_DISCOUNT -> {
+                requirePercentOff(rule);
+                if (rule.getTier() == null) {
+                    throw new InvalidPromotionRuleException(name, "a tier is required");
+                }
+            }
+            case BUY_X_GET_Y -> {
+                if (rule.getBuyQuantity() == null || rule.getBuyQuantity() < 1
+                        || rule.getFreeQuantity() == null || rule.getFreeQuantity() < 1) {
+                    throw new InvalidPromotionRuleException(name, "buyQuantity and freeQuantity must be at least 1");
+                }
+            }
+        }
+    }
+
+    private static void requirePercentOff(PromotionRule rule) {
+        if (rule.getPercentOff() == null || rule.getPercentOff() < 1 || rule.getPercentOff() > 100) {
+            throw new InvalidPromotionRuleException(rule.getName(), "percentOff must be between 1 and 100");
+        }
+    }
+
+    private static LineRules lineRules(List<PromotionRule> own, List<PromotionRule> allGenres) {
+        Discount best = null;
+        // Rules offering the same deal under different names are evaluated once
+        Map<Long, Deal> deals = new LinkedHashMap<>();
+        for (List<PromotionRule> rules : List.of(own, allGenres)) {
+            for (PromotionRule rule : rules) {
+                if (rule.getType() == PromotionRule.Type.GENRE_DISCOUNT) {
+                    if (best == null || best.percentOff() < rule.getPercentOff()) {
+                        best = new Discount(rule.getName(), rule.getPercentOff());
+                    }
+                } else {
+                    deals.putIfAbsent(((long) rule.getBuyQuantity() << 32) | rule.getFreeQuantity(),
+                            new Deal(rule.getName(), rule.getBuyQuantity(), rule.getFreeQuantity()));
+                }
+            }
+        }
+        return new LineRules(best, deals.values().toArray(Deal[]::new));
+    }
+}
@@ -4,6 +4,12 @@ import com.bookstore.api.model.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
     Page<Book> findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(
@@ -15,4 +21,48 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     Page<Book> findByGenre(String genre, Pageable pageable);
     
     boolean existsByIsbn(String isbn);
-}
\ No newline at end of file
+
+    List<Book> findByIdGreaterThan(Long id, Pageable pageable);
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    // Keyset pages ordered by (title, id); the pageable only limits the row count
+    List<Book> findAllByOrderByTitleAscIdAsc(Pageable pageable);
+
+    @Query("select b from Book b where b.title >= :title and (b.title > :title or b.id > :id) " +
+           "order by b.title, b.id")
+    List<Book> findPageAfter(@Param("title") String title, @Param("id") Long id, Pageable pageable);
+
+    List<Book> findByGenreOrderByTitleAscIdAsc(String genre, Pageable pageable);
+
+    @Query("select b from Book b where b.genre = :genre and b.title >= :title and (b.title > :title or b.id > :id) " +
+           "order by b.title, b.id")
+    List<Book> findPageByGenreAfter(@Param("genre") String genre, @Param("title") String title,
+                                    @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Decrements stock only if enough is left. Returns 0 when the book is missing, would oversell or
+     * the quantity is not positive.
+     */
+    @Modifying
+    @Query("update Book b set b.stockQuantity = b.stockQuantity - :quantity, b.version = b.version + 1 " +
+           "where b.id = :id and :quantity > 0 and b.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("update Book b set b.stockQuantity = b.stockQuantity + :quantity, b.version = b.version + 1 " +
+           "where b.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Scalar rows, so the values come from the database even when the books are managed
+    @Query("select b.id, b.stockQuantity from Book b where b.id in :ids")
+    List<Object[]> findStoredStock(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stock as the write-behind engine sees it: the stored quantity plus journaled changes that
+     * have not been flushed yet. Null when the book does not exist.
+     */
+    @Query("select b.stockQuantity + coalesce((select sum(j.delta) from StockJournalEntry j where j.bookId = b.id), 0) " +
+           "from Book b where b.id = :id")
+    Integer findAvailableStock(@Param("id") Long id);
+}
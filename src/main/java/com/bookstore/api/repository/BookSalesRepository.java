@@ -0,0 +1,11 @@
+package com.bookstore.api.repository;
+
+import com.bookstore.api.model.BookSales;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BookSalesRepository extends JpaRepository<BookSales, Long> {
+    List<BookSales> findAllByOrderByUnitsSoldDesc(Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.bookstore.api.repository;
+
+import com.bookstore.api.model.DailySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate> {
+    List<DailySales> findBySalesDateBetweenOrderBySalesDateAsc(LocalDate from, LocalDate to);
+}
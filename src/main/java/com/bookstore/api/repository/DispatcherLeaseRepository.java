@@ -0,0 +1,29 @@
+package com.bookstore.api.repository;
+
+import com.bookstore.api.model.DispatcherLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface DispatcherLeaseRepository extends JpaRepository<DispatcherLease, String> {
+
+    /**
+     * Takes or renews the lease if it is free, already held by the owner or expired. Returns 0 when
+     * another owner holds it, or when there is no lease row yet.
+     */
+    @Modifying
+    @Transactional
+    @Query("update DispatcherLease l set l.owner = :owner, l.expiresAt = :until " +
+           "where l.name = :name and (l.owner is null or l.owner = :owner or l.expiresAt < :now)")
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("update DispatcherLease l set l.owner = null where l.name = :name and l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,7 @@
+package com.bookstore.api.repository;
+
+import com.bookstore.api.model.GenreSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface GenreSalesRepository extends JpaRepository<GenreSales, String> {
+}
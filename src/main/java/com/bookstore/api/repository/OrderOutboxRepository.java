@@ -0,0 +1,42 @@
+package com.bookstore.api.repository;
+
+import com.bookstore.api.model.OrderOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEntry, Long> {
+
+    @Query("select e from OrderOutboxEntry e where e.dead = false and e.nextAttemptAt <= :now order by e.id")
+    List<OrderOutboxEntry> findReady(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Entries waiting for a retry. They are always the oldest pending entry of their handler and
+     * order, so later entries of that pair have to wait too.
+     */
+    @Query("select e from OrderOutboxEntry e where e.dead = false and e.nextAttemptAt > :now " +
+           "and e.orderId in :orderIds")
+    List<OrderOutboxEntry> findBackingOff(@Param("now") LocalDateTime now,
+                                          @Param("orderIds") Collection<Long> orderIds);
+
+    long countByDeadFalse();
+
+    long countByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from OrderOutboxEntry e where e.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select coalesce(max(e.id), 0) from OrderOutboxEntry e where e.handler = :handler")
+    long findMaxIdByHandler(@Param("handler") String handler);
+
+    @Modifying
+    @Query("delete from OrderOutboxEntry e where e.handler = :handler and e.id <= :maxId")
+    int deleteByHandlerUpTo(@Param("handler") String handler, @Param("maxId") long maxId);
+}
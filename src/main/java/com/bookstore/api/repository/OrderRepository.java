@@ -1,15 +1,73 @@
 package com.bookstore.api.repository;
 
 import com.bookstore.api.model.Order;
+import com.bookstore.api.model.OrderItem;
 import com.bookstore.api.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Listing queries join the customer via an entity graph; order items are then loaded for the whole
+ * page at once through hibernate.default_batch_fetch_size. Items carry a snapshot of their book, so
+ * books are not loaded at all.
+ */
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<Order> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
     Page<Order> findByUser(User user, Pageable pageable);
     
+    @EntityGraph(attributePaths = "user")
     Page<Order> findByStatus(Order.OrderStatus status, Pageable pageable);
     
+    @EntityGraph(attributePaths = "user")
     Page<Order> findByUserAndStatus(User user, Order.OrderStatus status, Pageable pageable);
-}
\ No newline at end of file
+
+    // Keyset pages, newest first by (orderDate, id); the pageable only limits the row count
+    @EntityGraph(attributePaths = "user")
+    List<Order> findAllByOrderByOrderDateDescIdDesc(Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("select o from Order o where o.orderDate <= :orderDate and (o.orderDate < :orderDate or o.id < :id) " +
+           "order by o.orderDate desc, o.id desc")
+    List<Order> findPageBefore(@Param("orderDate") LocalDateTime orderDate, @Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    List<Order> findByUserOrderByOrderDateDescIdDesc(User user, Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("select o from Order o where o.user = :user and o.orderDate <= :orderDate " +
+           "and (o.orderDate < :orderDate or o.id < :id) order by o.orderDate desc, o.id desc")
+    List<Order> findPageByUserBefore(@Param("user") User user, @Param("orderDate") LocalDateTime orderDate,
+                                     @Param("id") Long id, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    // Locks in id order, so batches touching overlapping orders cannot deadlock each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id in :ids order by o.id")
+    List<Order> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.status = :status where o.id in :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") Order.OrderStatus status);
+
+    @Query("select i from OrderItem i join fetch i.book where i.order.id in :orderIds")
+    List<OrderItem> findItemsWithBookByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
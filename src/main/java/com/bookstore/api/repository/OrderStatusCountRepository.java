@@ -0,0 +1,8 @@
+package com.bookstore.api.repository;
+
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.OrderStatusCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OrderStatusCountRepository extends JpaRepository<OrderStatusCount, Order.OrderStatus> {
+}
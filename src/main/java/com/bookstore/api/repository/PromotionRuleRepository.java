@@ -0,0 +1,12 @@
+package com.bookstore.api.repository;
+
+import com.bookstore.api.model.PromotionRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface PromotionRuleRepository extends JpaRepository<PromotionRule, Long> {
+
+    // Replacing the rules always inserts new ids, so the highest id identifies the current set
+    @Query("select coalesce(max(r.id), 0) from PromotionRule r")
+    long findMaxId();
+}
@@ -0,0 +1,11 @@
+package com.bookstore.api.repository;
+
+import com.bookstore.api.model.StockJournalEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface StockJournalRepository extends JpaRepository<StockJournalEntry, Long> {
+    List<StockJournalEntry> findAllByOrderByIdAsc(Pageable pageable);
+}
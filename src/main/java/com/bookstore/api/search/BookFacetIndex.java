@@ -0,0 +1,381 @@
+package com.bookstore.api.search;
+
+import com.bookstore.api.event.BookChangedEvent;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet index over the catalog. Each book gets a dense ordinal, and every genre, author,
+ * price bucket and the in-stock flag keeps a bitmap of ordinals, so filtering is a few bitmap
+ * intersections and each facet count is one intersection count, independent of the database.
+ * <p>
+ * Book events only mark books dirty; a short scheduled refresh reloads them in one query, which
+ * also picks up stock changes whose events carry no figures. Counts therefore trail writes by up
+ * to {@code app.facets.refresh-interval-ms}.
+ */
+@Component
+public class BookFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookFacetIndex.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final Comparator<String> TITLE_ORDER = Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER);
+
+    private final BookRepository bookRepository;
+    // Bucket bounds and prices are in cents
+    private final long[] priceBounds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private long[] ids = new long[1024];
+    private String[] titles = new String[1024];
+    private String[] genres = new String[1024];
+    private String[] authors = new String[1024];
+    private long[] prices = new long[1024];
+    private int nextOrdinal;
+
+    private final OrdinalBitmap live = new OrdinalBitmap();
+    private final OrdinalBitmap inStock = new OrdinalBitmap();
+    private final Map<String, OrdinalBitmap> byGenre = new HashMap<>();
+    private final Map<String, OrdinalBitmap> byAuthor = new HashMap<>();
+    private final OrdinalBitmap[] byPriceBucket;
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public BookFacetIndex(BookRepository bookRepository,
+                          @Value("${app.facets.price-buckets:10,20,50,100}") BigDecimal[] priceBounds) {
+        this.bookRepository = bookRepository;
+        this.priceBounds = Arrays.stream(priceBounds).mapToLong(bound -> Money.of(bound).cents()).toArray();
+        Arrays.sort(this.priceBounds);
+        this.byPriceBucket = new OrdinalBitmap[this.priceBounds.length + 1];
+        Arrays.setAll(byPriceBucket, i -> new OrdinalBitmap());
+    }
+
+    /**
+     * Genres match exactly and any of several may be given; the author match ignores case. Price
+     * bounds are inclusive and either may be null.
+     */
+    public record Filter(Collection<String> genres, String author, Money minPrice, Money maxPrice, boolean inStockOnly) {
+    }
+
+    public record PriceRange(Money from, Money to, long count) {
+    }
+
+    /**
+     * Counts for each facet are taken with the other facets' filters applied but not its own, so
+     * a dashboard can show the alternatives to the current selection.
+     */
+    public record FacetCounts(Map<String, Long> genres, List<PriceRange> prices, long inStock, long outOfStock) {
+    }
+
+    public record Result(List<Long> ids, long total, FacetCounts facets) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long started = System.currentTimeMillis();
+        int count = 0;
+        Long lastId = 0L;
+        List<Book> batch;
+        do {
+            batch = bookRepository.findByIdGreaterThan(lastId, PageRequest.of(0, BATCH_SIZE, Sort.by("id")));
+            indexAll(batch);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            count += batch.size();
+        } while (batch.size() == BATCH_SIZE);
+
+        ready = true;
+        // Books changed while building may have been read before the change; reload them
+        refresh();
+        log.info("Indexed {} books for facets in {} ms", count, System.currentTimeMillis() - started);
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        dirty.add(event.bookId());
+        if (event.type() == BookChangedEvent.Type.DELETED) {
+            remove(event.bookId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.facets.refresh-interval-ms:200}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        List<Long> batch;
+        do {
+            batch = new ArrayList<>();
+            Iterator<Long> pending = dirty.iterator();
+            while (pending.hasNext() && batch.size() < BATCH_SIZE) {
+                batch.add(pending.next());
+                pending.remove();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Book> books = bookRepository.findAllById(batch);
+            indexAll(books);
+            Set<Long> deleted = new HashSet<>(batch);
+            books.forEach(book -> deleted.remove(book.getId()));
+            deleted.forEach(this::remove);
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    public Result query(Filter filter, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            OrdinalBitmap genreFilter = genreFilter(filter.genres());
+            OrdinalBitmap authorFilter = filter.author() != null
+                    ? byAuthor.getOrDefault(authorKey(filter.author()), new OrdinalBitmap())
+                    : null;
+            OrdinalBitmap priceFilter = filter.minPrice() != null || filter.maxPrice() != null
+                    ? priceFilter(filter.minPrice() != null ? filter.minPrice().cents() : Long.MIN_VALUE,
+                                  filter.maxPrice() != null ? filter.maxPrice().cents() : Long.MAX_VALUE)
+                    : null;
+            OrdinalBitmap stockFilter = filter.inStockOnly() ? inStock : null;
+
+            OrdinalBitmap matches = intersect(genreFilter, authorFilter, priceFilter, stockFilter);
+            OrdinalBitmap anyStock = intersect(genreFilter, authorFilter, priceFilter);
+            long inStockCount = anyStock.andCardinality(inStock);
+            FacetCounts facets = new FacetCounts(
+                    genreCounts(intersect(authorFilter, priceFilter, stockFilter)),
+                    priceCounts(intersect(genreFilter, authorFilter, stockFilter)),
+                    inStockCount,
+                    anyStock.cardinality() - inStockCount);
+
+            return new Result(page(matches, offset, limit), matches.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void index(Book book) {
+        indexAll(List.of(book));
+    }
+
+    private void indexAll(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            books.forEach(this::indexLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(bookId);
+            if (ordinal != null) {
+                unindexLocked(ordinal);
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexLocked(Book book) {
+        Integer ordinal = ordinals.get(book.getId());
+        if (ordinal != null) {
+            unindexLocked(ordinal);
+        } else {
+            ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+            ensureCapacity(ordinal);
+            ordinals.put(book.getId(), ordinal);
+        }
+
+        ids[ordinal] = book.getId();
+        titles[ordinal] = book.getTitle();
+        genres[ordinal] = book.getGenre();
+        authors[ordinal] = authorKey(book.getAuthor());
+        prices[ordinal] = book.getPrice() != null ? book.getPrice().cents() : 0;
+
+        live.set(ordinal);
+        byGenre.computeIfAbsent(genres[ordinal], genre -> new OrdinalBitmap()).set(ordinal);
+        byAuthor.computeIfAbsent(authors[ordinal], author -> new OrdinalBitmap()).set(ordinal);
+        byPriceBucket[bucket(prices[ordinal])].set(ordinal);
+        if (book.getStockQuantity() != null && book.getStockQuantity() > 0) {
+            inStock.set(ordinal);
+        }
+    }
+
+    private void unindexLocked(int ordinal) {
+        live.clear(ordinal);
+        inStock.clear(ordinal);
+        clearValue(byGenre, genres[ordinal], ordinal);
+        clearValue(byAuthor, authors[ordinal], ordinal);
+        byPriceBucket[bucket(prices[ordinal])].clear(ordinal);
+        titles[ordinal] = null;
+        genres[ordinal] = null;
+        authors[ordinal] = null;
+    }
+
+    // Values no book has any more are dropped so they stop showing up as facets
+    private static void clearValue(Map<String, OrdinalBitmap> index, String value, int ordinal) {
+        OrdinalBitmap bitmap = index.get(value);
+        if (bitmap != null) {
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                index.remove(value);
+            }
+        }
+    }
+
+    private void ensureCapacity(int ordinal) {
+        if (ordinal >= ids.length) {
+            int capacity = Math.max(ordinal + 1, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            genres = Arrays.copyOf(genres, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+    }
+
+    private OrdinalBitmap genreFilter(Collection<String> selected) {
+        if (selected == null || selected.isEmpty()) {
+            return null;
+        }
+        OrdinalBitmap union = new OrdinalBitmap();
+        for (String genre : selected) {
+            OrdinalBitmap bitmap = byGenre.get(genre);
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        }
+        return union;
+    }
+
+    // Buckets entirely inside the range are taken whole; only the edge buckets check each price
+    private OrdinalBitmap priceFilter(long min, long max) {
+        OrdinalBitmap result = new OrdinalBitmap();
+        for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+            long from = bucket == 0 ? Long.MIN_VALUE : priceBounds[bucket - 1];
+            long to = bucket == priceBounds.length ? Long.MAX_VALUE : priceBounds[bucket];
+            if (to <= min || from > max) {
+                continue;
+            }
+            if (from >= min && to <= max) {
+                result.or(byPriceBucket[bucket]);
+            } else {
+                byPriceBucket[bucket].forEach(ordinal -> {
+                    if (prices[ordinal] >= min && prices[ordinal] <= max) {
+                        result.set(ordinal);
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    private OrdinalBitmap intersect(OrdinalBitmap... filters) {
+        OrdinalBitmap result = live.copy();
+        for (OrdinalBitmap filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Long> genreCounts(OrdinalBitmap base) {
+        Map<String, Long> counts = new HashMap<>();
+        byGenre.forEach((genre, bitmap) -> {
+            long count = base.andCardinality(bitmap);
+            if (count > 0) {
+                counts.put(genre, count);
+            }
+        });
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    private List<PriceRange> priceCounts(OrdinalBitmap base) {
+        List<PriceRange> ranges = new ArrayList<>();
+        for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+            Money from = bucket == 0 ? Money.ZERO : Money.ofCents(priceBounds[bucket - 1]);
+            Money to = bucket == priceBounds.length ? null : Money.ofCents(priceBounds[bucket]);
+            ranges.add(new PriceRange(from, to, base.andCardinality(byPriceBucket[bucket])));
+        }
+        return ranges;
+    }
+
+    // Listing order is title, then id; only the first offset + limit matches are kept in a heap,
+    // which grows with the matches rather than with the requested page
+    private List<Long> page(OrdinalBitmap matches, long offset, int limit) {
+        int total = matches.cardinality();
+        if (limit <= 0 || offset >= total) {
+            return List.of();
+        }
+        int k = (int) Math.min(offset + limit, total);
+        Comparator<Integer> order = Comparator.<Integer, String>comparing(ordinal -> titles[ordinal], TITLE_ORDER)
+                .thenComparingLong(ordinal -> ids[ordinal]);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(order.reversed());
+        matches.forEach(ordinal -> {
+            heap.offer(ordinal);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        });
+        List<Integer> top = new ArrayList<>(heap);
+        top.sort(order);
+        return top.subList((int) offset, top.size()).stream()
+                .map(ordinal -> ids[ordinal])
+                .toList();
+    }
+
+    private int bucket(long price) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && price >= priceBounds[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static String authorKey(String author) {
+        return author == null ? "" : author.trim().toLowerCase(Locale.ROOT);
+    }
+}
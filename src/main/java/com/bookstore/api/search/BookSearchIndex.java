@@ -0,0 +1,229 @@
+package com.bookstore.api.search;
+
+import com.bookstore.api.event.BookChangedEvent;
+import com.bookstore.api.event.BookChangedEvent.ListingFields;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over book title, author and ISBN. Every query token must match the
+ * start of an indexed token; results are ranked by which fields matched and whether the match
+ * was exact or a prefix.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    static final int TITLE_WEIGHT = 3;
+    static final int AUTHOR_WEIGHT = 2;
+    static final int ISBN_WEIGHT = 5;
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> termsByBook = new HashMap<>();
+    private final Map<Long, String> titles = new HashMap<>();
+
+    private volatile boolean ready;
+    // Books written while the initial build runs; the build must not overwrite them with older rows
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long started = System.currentTimeMillis();
+        int count = 0;
+        Long lastId = 0L;
+        List<Book> batch;
+        do {
+            batch = bookRepository.findByIdGreaterThan(lastId, PageRequest.of(0, BUILD_BATCH_SIZE, Sort.by("id")));
+            for (Book book : batch) {
+                indexIfUnchanged(book);
+                lastId = book.getId();
+            }
+            count += batch.size();
+        } while (batch.size() == BUILD_BATCH_SIZE);
+
+        ready = true;
+        changedDuringBuild.clear();
+        log.info("Indexed {} books for search in {} ms", count, System.currentTimeMillis() - started);
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (!ready) {
+            changedDuringBuild.add(event.bookId());
+        }
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.bookId(), event.after());
+            case DELETED -> remove(event.bookId());
+            case STOCK_CHANGED -> {
+                // Stock is not searchable
+            }
+        }
+    }
+
+    public void index(Book book) {
+        index(book.getId(), ListingFields.of(book));
+    }
+
+    public void index(Long bookId, ListingFields fields) {
+        index(bookId, fields, false);
+    }
+
+    // The check and the insert share the write lock, and onBookChanged records a book before it takes
+    // that lock, so a change either makes the build skip the row or is applied over it afterwards
+    private void indexIfUnchanged(Book book) {
+        index(book.getId(), ListingFields.of(book), true);
+    }
+
+    private void index(Long bookId, ListingFields fields, boolean unlessChangedDuringBuild) {
+        Map<String, Integer> weights = new HashMap<>();
+        SearchText.tokenize(fields.title()).forEach(token -> weights.merge(token, TITLE_WEIGHT, Math::max));
+        SearchText.tokenize(fields.author()).forEach(token -> weights.merge(token, AUTHOR_WEIGHT, Math::max));
+        String isbn = SearchText.normalizeIsbn(fields.isbn());
+        if (!isbn.isEmpty()) {
+            weights.merge(isbn, ISBN_WEIGHT, Math::max);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (unlessChangedDuringBuild && changedDuringBuild.contains(bookId)) {
+                return;
+            }
+            removeLocked(bookId);
+            weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(bookId, weight));
+            termsByBook.put(bookId, weights.keySet());
+            titles.put(bookId, SearchText.normalize(fields.title()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of matching book ids, best match first, along with the total hit count.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> tokens = SearchText.tokenize(query);
+        if (tokens.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = matchAll(tokens);
+            if (SearchText.looksLikeIsbn(query)) {
+                // "978-0-441" is one ISBN prefix, not three words; "1984" may be either
+                scoreToken(SearchText.normalizeIsbn(query)).forEach((id, score) -> scores.merge(id, score, Math::max));
+            }
+
+            Comparator<Long> ranking = Comparator.<Long>comparingInt(scores::get).reversed()
+                    .thenComparing(titles::get)
+                    .thenComparing(Comparator.naturalOrder());
+            List<Long> top = topK(scores.keySet(), offset + limit, ranking);
+
+            int from = Math.min(offset, top.size());
+            return new SearchResult(List.copyOf(top.subList(from, top.size())), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> matchAll(List<String> tokens) {
+        Map<Long, Integer> scores = scoreToken(tokens.get(0));
+        for (String token : tokens.subList(1, tokens.size())) {
+            if (scores.isEmpty()) {
+                break;
+            }
+            Map<Long, Integer> tokenScores = scoreToken(token);
+            scores.keySet().retainAll(tokenScores.keySet());
+            scores.replaceAll((id, score) -> score + tokenScores.get(id));
+        }
+        return scores;
+    }
+
+    // Keeps only the best k hits in a heap instead of sorting every match
+    private static List<Long> topK(Collection<Long> ids, int k, Comparator<Long> ranking) {
+        PriorityQueue<Long> heap = new PriorityQueue<>(ranking.reversed());
+        for (Long id : ids) {
+            heap.offer(id);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Long> top = new ArrayList<>(heap);
+        top.sort(ranking);
+        return top;
+    }
+
+    // Exact token matches count double; prefix matches count their field weight once
+    private Map<Long, Integer> scoreToken(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> entry : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            int multiplier = entry.getKey().equals(token) ? 2 : 1;
+            entry.getValue().forEach((id, weight) -> scores.merge(id, weight * multiplier, Math::max));
+        }
+        return scores;
+    }
+
+    private void removeLocked(Long bookId) {
+        Set<String> terms = termsByBook.remove(bookId);
+        titles.remove(bookId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(bookId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    public record SearchResult(List<Long> ids, long total) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.bookstore.api.search;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Growable bitset over book ordinals. Unlike {@link java.util.BitSet} it can count an
+ * intersection without materializing it, which is what facet counting does for every value.
+ */
+final class OrdinalBitmap {
+
+    private long[] words;
+
+    OrdinalBitmap() {
+        this(new long[16]);
+    }
+
+    private OrdinalBitmap(long[] words) {
+        this.words = words;
+    }
+
+    void set(int ordinal) {
+        int word = ordinal >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << ordinal;
+    }
+
+    void clear(int ordinal) {
+        int word = ordinal >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << ordinal);
+        }
+    }
+
+    boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    int andCardinality(OrdinalBitmap other) {
+        int count = 0;
+        int shared = Math.min(words.length, other.words.length);
+        for (int i = 0; i < shared; i++) {
+            count += Long.bitCount(words[i] & other.words[i]);
+        }
+        return count;
+    }
+
+    OrdinalBitmap copy() {
+        return new OrdinalBitmap(words.clone());
+    }
+
+    void and(OrdinalBitmap other) {
+        int shared = Math.min(words.length, other.words.length);
+        for (int i = 0; i < shared; i++) {
+            words[i] &= other.words[i];
+        }
+        Arrays.fill(words, shared, words.length, 0L);
+    }
+
+    void or(OrdinalBitmap other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+}
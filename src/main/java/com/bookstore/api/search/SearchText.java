@@ -0,0 +1,55 @@
+package com.bookstore.api.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Text normalization shared by the search index and anything that needs to predict its matches.
+ */
+public final class SearchText {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ISBN_LIKE = Pattern.compile("[0-9][0-9\\s-]*[0-9xX]");
+
+    private SearchText() {
+    }
+
+    /**
+     * Lower-cases and strips accents, so "Café" and "cafe" compare equal.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * ISBNs are indexed without separators so "978-0-441" and "9780441" find the same book.
+     */
+    public static String normalizeIsbn(String isbn) {
+        return SEPARATORS.matcher(normalize(isbn)).replaceAll("");
+    }
+
+    /**
+     * Digits with optional dashes or spaces are treated as one ISBN rather than separate words.
+     */
+    public static boolean looksLikeIsbn(String text) {
+        return text != null && ISBN_LIKE.matcher(text.trim()).matches();
+    }
+}
@@ -0,0 +1,81 @@
+package com.bookstore.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified JWTs and the principals they resolve to. An entry lives until the
+ * token expires or the configured TTL passes, whichever comes first.
+ */
+@Component
+public class AuthenticatedTokenCache implements MeterBinder {
+
+    private final Cache<String, CachedToken> cache;
+
+    public AuthenticatedTokenCache(@Value("${app.jwt-cache.max-size:10000}") long maxSize,
+                                   @Value("${app.jwt-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(TimeUnit.SECONDS.toNanos(ttlSeconds)))
+                .recordStats()
+                .build();
+    }
+
+    public UserDetails get(String token) {
+        CachedToken cached = cache.getIfPresent(token);
+        return cached != null ? cached.userDetails() : null;
+    }
+
+    public void put(String token, UserDetails userDetails, Date expiration) {
+        cache.put(token, new CachedToken(userDetails, expiration.getTime()));
+    }
+
+    /**
+     * Drops every cached token of the given user, e.g. after their role changed.
+     */
+    public void evictUser(String username) {
+        cache.asMap().values().removeIf(cached -> cached.userDetails().getUsername().equals(username));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "jwt.tokens");
+    }
+
+    record CachedToken(UserDetails userDetails, long expiresAtMillis) {
+    }
+
+    private record TokenExpiry(long ttlNanos) implements Expiry<String, CachedToken> {
+
+        @Override
+        public long expireAfterCreate(String token, CachedToken cached, long currentTime) {
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(cached.expiresAtMillis() - System.currentTimeMillis());
+            return Math.max(0, Math.min(ttlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, CachedToken cached, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, cached, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, CachedToken cached, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.bookstore.api.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +26,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private AuthenticatedTokenCache tokenCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -30,10 +39,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJWT(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
+            UserDetails userDetails = StringUtils.hasText(jwt) ? resolveUser(jwt) : null;
+
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -47,6 +55,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolveUser(String jwt) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        UserDetails cached = tokenCache.get(jwt);
+        if (cached != null) {
+            sample.stop(validationTimer("hit", "valid"));
+            return cached;
+        }
+
+        Claims claims = tokenProvider.parseToken(jwt).orElse(null);
+        if (claims == null) {
+            sample.stop(validationTimer("miss", "invalid"));
+            return null;
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        tokenCache.put(jwt, userDetails, claims.getExpiration());
+        sample.stop(validationTimer("miss", "valid"));
+        return userDetails;
+    }
+
+    private Timer validationTimer(String cache, String outcome) {
+        return Timer.builder("jwt.validation")
+                .description("Time to turn a bearer token into a principal")
+                .tag("cache", cache)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,72 @@
+package com.bookstore.api.security;
+
+import com.bookstore.api.exception.LoginThrottledException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-window limits checked before any password is hashed: every attempt counts against the
+ * client address, and failed logins count against the account until one succeeds.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final long MAX_TRACKED_KEYS = 100_000;
+
+    private final Cache<String, AtomicInteger> attemptsByAddress;
+    private final Cache<String, AtomicInteger> failuresByEmail;
+    private final int maxAttemptsPerAddress;
+    private final int maxFailuresPerEmail;
+    private final long windowSeconds;
+
+    public LoginRateLimiter(@Value("${app.security.login.window-seconds:60}") long windowSeconds,
+                            @Value("${app.security.login.max-attempts-per-ip:30}") int maxAttemptsPerAddress,
+                            @Value("${app.security.login.max-failures-per-email:5}") int maxFailuresPerEmail) {
+        this.windowSeconds = windowSeconds;
+        this.maxAttemptsPerAddress = maxAttemptsPerAddress;
+        this.maxFailuresPerEmail = maxFailuresPerEmail;
+        this.attemptsByAddress = window(windowSeconds);
+        this.failuresByEmail = window(windowSeconds);
+    }
+
+    /**
+     * Counts an attempt from the address and throws if the address or the account (when given)
+     * is over its limit.
+     */
+    public void acquire(String email, String address) {
+        if (attemptsByAddress.get(address, key -> new AtomicInteger()).incrementAndGet() > maxAttemptsPerAddress) {
+            throw new LoginThrottledException(windowSeconds);
+        }
+        if (email != null) {
+            AtomicInteger failures = failuresByEmail.getIfPresent(key(email));
+            if (failures != null && failures.get() >= maxFailuresPerEmail) {
+                throw new LoginThrottledException(windowSeconds);
+            }
+        }
+    }
+
+    public void recordFailure(String email) {
+        failuresByEmail.get(key(email), key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void recordSuccess(String email) {
+        failuresByEmail.invalidate(key(email));
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Cache<String, AtomicInteger> window(long windowSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_KEYS)
+                .expireAfterWrite(Duration.ofSeconds(windowSeconds))
+                .build();
+    }
+}
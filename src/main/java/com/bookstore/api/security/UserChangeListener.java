@@ -0,0 +1,46 @@
+package com.bookstore.api.security;
+
+import com.bookstore.api.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener that drops cached authentications and directory entries when a user row changes,
+ * so a new role takes effect on the next request instead of when the cached token expires.
+ */
+public class UserChangeListener {
+
+    private final AuthenticatedTokenCache tokenCache;
+    // Looked up lazily: the directory needs the entity manager factory that creates this listener
+    private final ObjectProvider<UserDirectory> userDirectory;
+
+    public UserChangeListener(AuthenticatedTokenCache tokenCache, ObjectProvider<UserDirectory> userDirectory) {
+        this.tokenCache = tokenCache;
+        this.userDirectory = userDirectory;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        tokenCache.evictUser(user.getEmail());
+        UserDirectory directory = userDirectory.getObject();
+        directory.evict(user.getId(), user.getEmail());
+        // A lookup between this flush and the commit would cache the old row again
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Long id = user.getId();
+            String email = user.getEmail();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tokenCache.evictUser(email);
+                    directory.evict(id, email);
+                }
+            });
+        }
+    }
+}
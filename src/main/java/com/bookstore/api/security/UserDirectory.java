@@ -0,0 +1,90 @@
+package com.bookstore.api.security;
+
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Resolves users by email without going to the database on every request. Principals are kept in
+ * a bounded cache and additionally memoized per request, so a request that authenticates the
+ * caller and then looks them up again resolves them once. {@link UserChangeListener} evicts a
+ * user whenever their row changes; the TTL bounds staleness for changes made by other instances.
+ */
+@Component
+public class UserDirectory implements MeterBinder {
+
+    private static final String REQUEST_ATTRIBUTE_PREFIX = UserDirectory.class.getName() + ".";
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserPrincipal> principals;
+
+    public UserDirectory(UserRepository userRepository,
+                         @Value("${app.user-directory.max-size:50000}") long maxSize,
+                         @Value("${app.user-directory.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * What the application needs to know about a user on the hot path; the password is the hash.
+     */
+    public record UserPrincipal(Long id, String email, String name, User.Role role, String password, User.Tier tier) {
+
+        static UserPrincipal of(User user) {
+            return new UserPrincipal(user.getId(), user.getEmail(), user.getName(), user.getRole(), user.getPassword(),
+                    user.getTier());
+        }
+    }
+
+    public Optional<UserPrincipal> find(String email) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        String attribute = REQUEST_ATTRIBUTE_PREFIX + email;
+        if (request != null && request.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST) instanceof UserPrincipal memoized) {
+            return Optional.of(memoized);
+        }
+
+        // Unknown emails are not cached, so a registration is visible immediately
+        UserPrincipal principal = principals.get(email,
+                key -> userRepository.findByEmail(key).map(UserPrincipal::of).orElse(null));
+        if (principal != null && request != null) {
+            request.setAttribute(attribute, principal, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.ofNullable(principal);
+    }
+
+    public UserPrincipal require(String email) {
+        return find(email).orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * Drops the user by id as well as by email, so an email change cannot leave the old entry behind.
+     */
+    public void evict(Long id, String email) {
+        if (email != null) {
+            principals.invalidate(email);
+        }
+        if (id != null) {
+            principals.asMap().values().removeIf(principal -> principal.id().equals(id));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, principals, "user.directory");
+    }
+}
@@ -0,0 +1,427 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.dto.BookRequest;
+import com.bookstore.api.dto.BulkImportError;
+import com.bookstore.api.dto.BulkImportResult;
+import com.bookstore.api.event.BookChangedEvent;
+import com.bookstore.api.event.BookChangedEvent.ListingFields;
+import com.bookstore.api.exception.UnsupportedFormatException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.stock.StockReservationEngine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streams book feeds in and out of the catalog. Imports are read one row at a time and written
+ * with JDBC batches, so memory stays flat no matter how large the feed is.
+ */
+@Service
+public class BookImportService {
+
+    private static final List<String> COLUMNS = List.of(
+            "title", "author", "genre", "isbn", "price", "description", "stockQuantity", "imageUrl");
+
+    private static final String INSERT_SQL = "insert into books " +
+            "(title, author, genre, isbn, price, description, stock_quantity, image_url) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "update books set title = ?, author = ?, genre = ?, price = ?, " +
+            "description = ?, stock_quantity = ?, image_url = ?, version = version + 1 where isbn = ?";
+
+    public enum Format {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public static Format fromMediaType(String mediaType) {
+            for (Format format : values()) {
+                if (mediaType != null && mediaType.toLowerCase(Locale.ROOT).startsWith(format.mediaType)) {
+                    return format;
+                }
+            }
+            throw new UnsupportedFormatException(mediaType);
+        }
+
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new UnsupportedFormatException(name);
+        }
+    }
+
+    private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockReservationEngine stockEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public BookImportService(BookRepository bookRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             StockReservationEngine stockEngine,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${app.books.import.batch-size:1000}") int batchSize,
+                             @Value("${app.books.import.max-reported-errors:10000}") int maxReportedErrors) {
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stockEngine = stockEngine;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Upserts books by ISBN. CSV input needs a header row naming the columns; NDJSON input has one
+     * book object per line. Rows that fail parsing, validation or the database are reported
+     * individually and do not stop the import.
+     */
+    public BulkImportResult importBooks(BufferedReader reader, Format format) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        Map<String, Integer> header = format == Format.CSV ? readCsvHeader(reader) : null;
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        String record;
+        long row = 0;
+        while ((record = format == Format.CSV ? readCsvRecord(reader) : reader.readLine()) != null) {
+            if (record.isBlank()) {
+                continue;
+            }
+            row++;
+            result.setProcessed(result.getProcessed() + 1);
+
+            BookRequest request;
+            try {
+                request = format == Format.CSV ? parseCsv(record, header) : objectMapper.readValue(record, BookRequest.class);
+            } catch (JsonProcessingException | IllegalArgumentException ex) {
+                fail(result, row, null, "Unreadable row: " + ex.getMessage());
+                continue;
+            }
+
+            Set<ConstraintViolation<BookRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                fail(result, row, request.getIsbn(), violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+
+            batch.add(new ImportRow(row, request));
+            if (batch.size() == batchSize) {
+                writeBatch(batch, result);
+                batch.clear();
+            }
+        }
+        writeBatch(batch, result);
+        return result;
+    }
+
+    /**
+     * Writes every book in the import format, paging by id so only one page is held at a time.
+     */
+    public void exportBooks(OutputStream out, Format format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        Long lastId = 0L;
+        List<Book> page;
+        do {
+            page = bookRepository.findByIdGreaterThan(lastId, PageRequest.of(0, batchSize, Sort.by("id")));
+            for (Book book : page) {
+                writer.write(format == Format.CSV ? toCsv(book) : objectMapper.writeValueAsString(toRequest(book)));
+                writer.write('\n');
+                lastId = book.getId();
+            }
+            writer.flush();
+        } while (page.size() == batchSize);
+    }
+
+    private void writeBatch(List<ImportRow> batch, BulkImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // The last row for an ISBN wins; earlier ones in the same batch are reported as replaced
+        Map<String, ImportRow> rowsByIsbn = new LinkedHashMap<>();
+        for (ImportRow row : batch) {
+            ImportRow replaced = rowsByIsbn.put(row.request().getIsbn(), row);
+            if (replaced != null) {
+                fail(result, replaced.row(), replaced.request().getIsbn(), "Replaced by row " + row.row());
+            }
+        }
+
+        Map<String, Book> existing = bookRepository.findByIsbnIn(rowsByIsbn.keySet()).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+
+        // Imports set stock outright, so live stock counters move by the difference
+        List<Long> updatedIds = existing.values().stream().map(Book::getId).toList();
+        List<ImportRow> written = stockEngine.overwriteStock(updatedIds, () -> writeRows(rowsByIsbn, existing, result));
+
+        for (ImportRow row : written) {
+            if (existing.containsKey(row.request().getIsbn())) {
+                result.setUpdated(result.getUpdated() + 1);
+            } else {
+                result.setInserted(result.getInserted() + 1);
+            }
+        }
+        publishChanges(written, existing);
+    }
+
+    private List<ImportRow> writeRows(Map<String, ImportRow> rowsByIsbn, Map<String, Book> existing,
+                                      BulkImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> inserts = new ArrayList<>();
+                List<Object[]> updates = new ArrayList<>();
+                for (ImportRow row : rowsByIsbn.values()) {
+                    if (existing.containsKey(row.request().getIsbn())) {
+                        updates.add(updateArgs(row.request()));
+                    } else {
+                        inserts.add(insertArgs(row.request()));
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            });
+            return List.copyOf(rowsByIsbn.values());
+        } catch (DataAccessException ex) {
+            // Fall back to one transaction per row to find the offending ones
+            return writeRowByRow(rowsByIsbn.values(), existing, result);
+        }
+    }
+
+    private List<ImportRow> writeRowByRow(Iterable<ImportRow> rows, Map<String, Book> existing,
+                                          BulkImportResult result) {
+        List<ImportRow> written = new ArrayList<>();
+        for (ImportRow row : rows) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (existing.containsKey(row.request().getIsbn())) {
+                        jdbcTemplate.update(UPDATE_SQL, updateArgs(row.request()));
+                    } else {
+                        jdbcTemplate.update(INSERT_SQL, insertArgs(row.request()));
+                    }
+                });
+                written.add(row);
+            } catch (DataAccessException ex) {
+                fail(result, row.row(), row.request().getIsbn(), ex.getMostSpecificCause().getMessage());
+            }
+        }
+        return written;
+    }
+
+    // Updated rows are described from the import itself: the books loaded before the write may
+    // still be managed by the request's persistence context and would read back stale
+    private void publishChanges(List<ImportRow> written, Map<String, Book> existing) {
+        List<String> inserted = new ArrayList<>();
+        for (ImportRow row : written) {
+            BookRequest request = row.request();
+            Book before = existing.get(request.getIsbn());
+            if (before == null) {
+                inserted.add(request.getIsbn());
+                continue;
+            }
+            eventPublisher.publishEvent(BookChangedEvent.updated(before.getId(), ListingFields.of(before),
+                    new ListingFields(request.getTitle(), request.getAuthor(), request.getGenre(), request.getIsbn())));
+        }
+        if (!inserted.isEmpty()) {
+            bookRepository.findByIsbnIn(inserted).forEach(book -> eventPublisher.publishEvent(BookChangedEvent.created(book)));
+        }
+    }
+
+    private void fail(BulkImportResult result, long row, String isbn, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new BulkImportError(row, isbn, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private Object[] insertArgs(BookRequest request) {
+        return new Object[]{request.getTitle(), request.getAuthor(), request.getGenre(), request.getIsbn(),
+                request.getPrice(), request.getDescription(), request.getStockQuantity(), request.getImageUrl()};
+    }
+
+    private Object[] updateArgs(BookRequest request) {
+        return new Object[]{request.getTitle(), request.getAuthor(), request.getGenre(), request.getPrice(),
+                request.getDescription(), request.getStockQuantity(), request.getImageUrl(), request.getIsbn()};
+    }
+
+    private BookRequest toRequest(Book book) {
+        BookRequest request = new BookRequest();
+        request.setTitle(book.getTitle());
+        request.setAuthor(book.getAuthor());
+        request.setGenre(book.getGenre());
+        request.setIsbn(book.getIsbn());
+        request.setPrice(book.getPrice() != null ? book.getPrice().toBigDecimal() : null);
+        request.setDescription(book.getDescription());
+        request.setStockQuantity(book.getStockQuantity());
+        request.setImageUrl(book.getImageUrl());
+        return request;
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String line = readCsvRecord(reader);
+        if (line == null) {
+            return Map.of();
+        }
+        Map<String, String> known = COLUMNS.stream()
+                .collect(Collectors.toMap(column -> column.toLowerCase(Locale.ROOT), Function.identity()));
+        Map<String, Integer> header = new HashMap<>();
+        List<String> names = splitCsv(line);
+        for (int i = 0; i < names.size(); i++) {
+            String column = known.get(names.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column != null) {
+                header.put(column, i);
+            }
+        }
+        return header;
+    }
+
+    private BookRequest parseCsv(String record, Map<String, Integer> header) {
+        List<String> fields = splitCsv(record);
+        Function<String, String> field = column -> {
+            Integer index = header.get(column);
+            String value = index != null && index < fields.size() ? fields.get(index).trim() : "";
+            return value.isEmpty() ? null : value;
+        };
+
+        BookRequest request = new BookRequest();
+        request.setTitle(field.apply("title"));
+        request.setAuthor(field.apply("author"));
+        request.setGenre(field.apply("genre"));
+        request.setIsbn(field.apply("isbn"));
+        String price = field.apply("price");
+        request.setPrice(price != null ? new BigDecimal(price) : null);
+        request.setDescription(field.apply("description"));
+        String stock = field.apply("stockQuantity");
+        request.setStockQuantity(stock != null ? Integer.valueOf(stock) : null);
+        request.setImageUrl(field.apply("imageUrl"));
+        return request;
+    }
+
+    // A quoted field may span lines; keep reading until the quotes balance
+    private String readCsvRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (countQuotes(record) % 2 != 0 && (line = reader.readLine()) != null) {
+            record.append('\n').append(line);
+        }
+        return record.toString();
+    }
+
+    private static int countQuotes(CharSequence text) {
+        int quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    private static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String toCsv(Book book) {
+        return String.join(",", csvField(book.getTitle()), csvField(book.getAuthor()), csvField(book.getGenre()),
+                csvField(book.getIsbn()), csvField(book.getPrice()), csvField(book.getDescription()),
+                csvField(book.getStockQuantity()), csvField(book.getImageUrl()));
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private record ImportRow(long row, BookRequest request) {
+    }
+}
@@ -0,0 +1,214 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.dto.BulkStatusUpdateResult;
+import com.bookstore.api.dto.StatusUpdate;
+import com.bookstore.api.dto.StatusUpdateOutcome;
+import com.bookstore.api.event.BookChangedEvent;
+import com.bookstore.api.event.OrderChangedEvent;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.OrderItem;
+import com.bookstore.api.outbox.OrderOutbox;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.stock.StockReservationEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies many order status changes at once for fulfillment systems. Orders are handled in
+ * batches, each in its own transaction: the batch's rows are locked with one query, every
+ * transition is checked against {@link Order.OrderStatus#canTransitionTo}, and the new statuses
+ * are written with one update per target status. Stock of cancelled orders goes back to the books
+ * in the same transaction as a single JDBC batch.
+ * <p>
+ * Several updates for the same order are applied in request order, so SHIPPED followed by
+ * DELIVERED in one request is fine.
+ */
+@Service
+public class BulkOrderStatusService {
+
+    private static final String RETURN_STOCK_SQL = "update books set stock_quantity = stock_quantity + ?, version = version + 1 where id = ?";
+
+    private final OrderRepository orderRepository;
+    private final StockReservationEngine stockEngine;
+    private final OrderOutbox orderOutbox;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    public BulkOrderStatusService(OrderRepository orderRepository,
+                                  StockReservationEngine stockEngine,
+                                  OrderOutbox orderOutbox,
+                                  JdbcTemplate jdbcTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.orders.bulk-status.batch-size:500}") int batchSize,
+                                  @Value("${app.orders.max-attempts:3}") int maxAttempts) {
+        this.orderRepository = orderRepository;
+        this.stockEngine = stockEngine;
+        this.orderOutbox = orderOutbox;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    private record Change(Order order, Order.OrderStatus from, Order.OrderStatus to) {
+    }
+
+    private record BatchResult(Map<Integer, StatusUpdateOutcome> outcomes, Map<Long, Integer> returnedStock) {
+    }
+
+    /**
+     * Batches that committed stay applied if a later one fails.
+     */
+    public BulkStatusUpdateResult apply(List<StatusUpdate> updates) {
+        StatusUpdateOutcome[] outcomes = new StatusUpdateOutcome[updates.size()];
+        Order.OrderStatus[] targets = new Order.OrderStatus[updates.size()];
+        // Request positions per order, in order id order
+        Map<Long, List<Integer>> positions = new TreeMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            StatusUpdate update = updates.get(i);
+            targets[i] = parseStatus(update.getStatus());
+            if (targets[i] == null) {
+                outcomes[i] = new StatusUpdateOutcome(update.getId(), StatusUpdateOutcome.Result.UNKNOWN_STATUS, null);
+            } else {
+                positions.computeIfAbsent(update.getId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Long> orderIds = new ArrayList<>(positions.keySet());
+        for (int from = 0; from < orderIds.size(); from += batchSize) {
+            List<Long> batch = orderIds.subList(from, Math.min(from + batchSize, orderIds.size()));
+            BatchResult result = applyWithRetry(batch, positions, targets);
+            result.outcomes().forEach((position, outcome) -> outcomes[position] = outcome);
+            publishStockChanged(result.returnedStock());
+        }
+
+        BulkStatusUpdateResult result = new BulkStatusUpdateResult();
+        for (StatusUpdateOutcome outcome : outcomes) {
+            switch (outcome.getResult()) {
+                case UPDATED -> result.setUpdated(result.getUpdated() + 1);
+                case UNCHANGED -> result.setUnchanged(result.getUnchanged() + 1);
+                default -> result.setRejected(result.getRejected() + 1);
+            }
+            result.getResults().add(outcome);
+        }
+        return result;
+    }
+
+    private BatchResult applyWithRetry(List<Long> orderIds, Map<Long, List<Integer>> positions,
+                                       Order.OrderStatus[] targets) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> applyBatch(orderIds, positions, targets));
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private BatchResult applyBatch(List<Long> orderIds, Map<Long, List<Integer>> positions,
+                                   Order.OrderStatus[] targets) {
+        Map<Long, Order> orders = orderRepository.findAllByIdForUpdate(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        Map<Integer, StatusUpdateOutcome> outcomes = new HashMap<>();
+        List<Change> changes = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                positions.get(orderId).forEach(position -> outcomes.put(position,
+                        new StatusUpdateOutcome(orderId, StatusUpdateOutcome.Result.NOT_FOUND, null)));
+                continue;
+            }
+            Order.OrderStatus current = order.getStatus();
+            for (int position : positions.get(orderId)) {
+                Order.OrderStatus target = targets[position];
+                StatusUpdateOutcome.Result result;
+                if (target == current) {
+                    result = StatusUpdateOutcome.Result.UNCHANGED;
+                } else if (current.canTransitionTo(target)) {
+                    current = target;
+                    result = StatusUpdateOutcome.Result.UPDATED;
+                } else {
+                    result = StatusUpdateOutcome.Result.ILLEGAL_TRANSITION;
+                }
+                outcomes.put(position, new StatusUpdateOutcome(orderId, result, current.name()));
+            }
+            if (current != order.getStatus()) {
+                changes.add(new Change(order, order.getStatus(), current));
+            }
+        }
+        if (changes.isEmpty()) {
+            return new BatchResult(outcomes, Map.of());
+        }
+
+        Map<Order.OrderStatus, List<Long>> idsByStatus = new EnumMap<>(Order.OrderStatus.class);
+        changes.forEach(change -> idsByStatus.computeIfAbsent(change.to(), status -> new ArrayList<>())
+                .add(change.order().getId()));
+        idsByStatus.forEach((status, ids) -> orderRepository.updateStatus(ids, status));
+
+        List<Long> cancelled = changes.stream()
+                .filter(change -> change.to() == Order.OrderStatus.CANCELLED)
+                .map(change -> change.order().getId())
+                .toList();
+        Map<Long, List<OrderItem>> items = cancelled.isEmpty() ? Map.of()
+                : orderRepository.findItemsWithBookByOrderIdIn(cancelled).stream()
+                        .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+        Map<Long, Integer> returned = new TreeMap<>();
+        items.values().forEach(orderItems -> orderItems.forEach(item ->
+                returned.merge(item.getBook().getId(), item.getQuantity(), Math::addExact)));
+        returnStock(returned);
+
+        for (Change change : changes) {
+            Order order = change.order();
+            orderOutbox.append(OrderChangedEvent.statusChanged(order.getId(), order.getOrderDate(), change.from(),
+                    change.to(), items.getOrDefault(order.getId(), List.of())));
+        }
+        return new BatchResult(outcomes, returned);
+    }
+
+    // Books are updated in id order, like order placement, so the two cannot deadlock on them
+    private void returnStock(Map<Long, Integer> quantities) {
+        if (stockEngine.isEnabled()) {
+            quantities.forEach(stockEngine::release);
+        } else if (!quantities.isEmpty()) {
+            jdbcTemplate.batchUpdate(RETURN_STOCK_SQL, quantities.entrySet().stream()
+                    .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                    .toList());
+        }
+    }
+
+    private void publishStockChanged(Map<Long, Integer> quantities) {
+        if (!stockEngine.isEnabled()) {
+            quantities.keySet().forEach(bookId -> eventPublisher.publishEvent(BookChangedEvent.stockChanged(bookId)));
+        }
+    }
+
+    private static Order.OrderStatus parseStatus(String status) {
+        try {
+            return Order.OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.exception.IdempotencyKeyReusedException;
+import com.bookstore.api.exception.IdempotentRequestInProgressException;
+import com.bookstore.api.model.OrderIdempotencyKey;
+import com.bookstore.api.repository.OrderIdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates order submissions carrying an Idempotency-Key. Keys seen recently are answered from
+ * memory, older ones from the {@code order_idempotency_keys} table. Duplicates arriving while the
+ * first submission is still running wait for its outcome on this instance; across instances the
+ * table's unique constraint lets only one of them commit and the others return its order.
+ */
+@Component
+public class OrderIdempotency {
+
+    private final OrderIdempotencyKeyRepository repository;
+    private final Duration retention;
+    private final long waitTimeoutMs;
+
+    private final Cache<Key, Stored> recent;
+    private final ConcurrentMap<Key, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    public OrderIdempotency(OrderIdempotencyKeyRepository repository,
+                            @Value("${app.orders.idempotency.cache-ttl-seconds:600}") long cacheTtlSeconds,
+                            @Value("${app.orders.idempotency.cache-max-size:100000}") long cacheMaxSize,
+                            @Value("${app.orders.idempotency.retention-hours:24}") long retentionHours,
+                            @Value("${app.orders.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.repository = repository;
+        this.retention = Duration.ofHours(retentionHours);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+
+    private record Stored(String requestHash, Long orderId) {
+
+        Long orderIdFor(String requestHash) {
+            if (!this.requestHash.equals(requestHash)) {
+                throw new IdempotencyKeyReusedException();
+            }
+            return orderId;
+        }
+    }
+
+    /**
+     * Returns the id of the order placed for this key, running {@code placeOrder} only if no
+     * submission with the key has succeeded yet. {@code placeOrder} must call {@link #record} in
+     * the order's transaction.
+     */
+    public Long submit(Long userId, String idempotencyKey, Map<Long, Integer> quantities, Supplier<Long> placeOrder) {
+        Key key = new Key(userId, idempotencyKey);
+        String requestHash = requestHash(quantities);
+        Stored stored = find(key);
+        if (stored != null) {
+            return stored.orderIdFor(requestHash);
+        }
+
+        CompletableFuture<Stored> submission = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(key, submission);
+        if (running != null) {
+            return await(running).orderIdFor(requestHash);
+        }
+        try {
+            try {
+                stored = new Stored(requestHash, placeOrder.get());
+            } catch (DataIntegrityViolationException ex) {
+                // Another instance committed the same key first; its order was rolled back here
+                stored = repository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                        .map(row -> new Stored(row.getRequestHash(), row.getOrderId()))
+                        .orElseThrow(() -> ex);
+            }
+            recent.put(key, stored);
+            submission.complete(stored);
+            return stored.orderIdFor(requestHash);
+        } catch (RuntimeException ex) {
+            // Waiting duplicates get the same failure; a later retry runs again
+            submission.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, submission);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, String idempotencyKey, Map<Long, Integer> quantities, Long orderId) {
+        // Flushed right away so a duplicate fails before the rest of the transaction commits
+        repository.saveAndFlush(new OrderIdempotencyKey(userId, idempotencyKey, requestHash(quantities), orderId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        repository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    private Stored find(Key key) {
+        Stored stored = recent.getIfPresent(key);
+        if (stored == null) {
+            stored = repository.findByUserIdAndIdempotencyKey(key.userId(), key.idempotencyKey())
+                    .map(row -> new Stored(row.getRequestHash(), row.getOrderId()))
+                    .orElse(null);
+            if (stored != null) {
+                recent.put(key, stored);
+            }
+        }
+        return stored;
+    }
+
+    private Stored await(CompletableFuture<Stored> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Order submission failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IdempotentRequestInProgressException();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException();
+        }
+    }
+
+    // Quantities are keyed by book id in sorted order, so equal orders always hash the same
+    private static String requestHash(Map<Long, Integer> quantities) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(quantities.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bookstore.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills in the book snapshot of order lines written before order items carried one. Title and ISBN
+ * come from the book as it is now, which is the best that can be recovered; the unit price is
+ * derived from the stored line total, so it stays the price actually paid. Lines are updated in
+ * id batches, each its own statement, so the backfill never holds locks on many rows at once.
+ */
+@Component
+public class OrderItemSnapshotBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderItemSnapshotBackfill.class);
+
+    private static final String NEXT_BATCH_SQL =
+            "select id from order_items where book_title is null and id > ? order by id limit ?";
+    private static final String BACKFILL_SQL = "update order_items set " +
+            "book_title = (select b.title from books b where b.id = order_items.book_id), " +
+            "book_isbn = (select b.isbn from books b where b.id = order_items.book_id), " +
+            "unit_price = price / quantity " +
+            "where id between ? and ? and book_title is null";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public OrderItemSnapshotBackfill(JdbcTemplate jdbcTemplate,
+                                     @Value("${app.orders.snapshot-backfill.enabled:true}") boolean enabled,
+                                     @Value("${app.orders.snapshot-backfill.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            int filled = backfill();
+            if (filled > 0) {
+                log.info("Backfilled the book snapshot of {} order items", filled);
+            }
+        }
+    }
+
+    /**
+     * Runs until no line is left without a snapshot and returns the number of lines filled in.
+     */
+    public int backfill() {
+        int filled = 0;
+        long after = 0;
+        List<Long> ids;
+        do {
+            ids = jdbcTemplate.queryForList(NEXT_BATCH_SQL, Long.class, after, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            after = ids.get(ids.size() - 1);
+            filled += jdbcTemplate.update(BACKFILL_SQL, ids.get(0), after);
+        } while (ids.size() == batchSize);
+        return filled;
+    }
+}
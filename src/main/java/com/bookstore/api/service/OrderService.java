@@ -0,0 +1,275 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.dto.OrderItemRequest;
+import com.bookstore.api.event.BookChangedEvent;
+import com.bookstore.api.event.OrderChangedEvent;
+import com.bookstore.api.exception.IllegalStatusTransitionException;
+import com.bookstore.api.exception.InsufficientStockException;
+import com.bookstore.api.exception.InvalidAmountException;
+import com.bookstore.api.exception.InvalidQuantityException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.OrderItem;
+import com.bookstore.api.model.User;
+import com.bookstore.api.outbox.OrderOutbox;
+import com.bookstore.api.pricing.PricingEngine;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.stock.StockReservationEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class OrderService {
+
+    // orders.total_amount and order_items.price are DECIMAL(14,2); the lines add up to the total,
+    // so every line fits when the total does
+    private static final long MAX_TOTAL_CENTS = 99_999_999_999_999L;
+
+    private final OrderRepository orderRepository;
+    private final BookRepository bookRepository;
+    private final StockReservationEngine stockEngine;
+    private final OrderOutbox orderOutbox;
+    private final OrderIdempotency orderIdempotency;
+    private final PricingEngine pricingEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public OrderService(OrderRepository orderRepository,
+                        BookRepository bookRepository,
+                        StockReservationEngine stockEngine,
+                        OrderOutbox orderOutbox,
+                        OrderIdempotency orderIdempotency,
+                        PricingEngine pricingEngine,
+                        ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.orders.max-attempts:3}") int maxAttempts) {
+        this.orderRepository = orderRepository;
+        this.bookRepository = bookRepository;
+        this.stockEngine = stockEngine;
+        this.orderOutbox = orderOutbox;
+        this.orderIdempotency = orderIdempotency;
+        this.pricingEngine = pricingEngine;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Places an order in a single transaction. All books are loaded with one query and stock is
+     * taken with conditional updates, so concurrent orders can never push stock below zero.
+     * Lock conflicts (e.g. deadlocks between orders touching the same books) are retried. With
+     * the write-behind engine enabled, stock is reserved in memory instead of on the books rows.
+     * Other side effects are left to {@link com.bookstore.api.outbox.OrderEventHandler}s, fed from
+     * an outbox entry written in the same transaction.
+     */
+    public Order placeOrder(User user, List<OrderItemRequest> items) {
+        return placeOrder(user, items, null);
+    }
+
+    /**
+     * Like {@link #placeOrder(User, List)}, but a repeated submission with the same idempotency
+     * key returns the order placed the first time instead of placing another one.
+     */
+    public Order placeOrder(User user, List<OrderItemRequest> items, String idempotencyKey) {
+        return placeOrder(user, user.getTier(), items, idempotencyKey);
+    }
+
+    /**
+     * Takes the customer's tier from the caller, e.g. from the user directory, so a reference to
+     * the user is enough and the users row is not read.
+     */
+    public Order placeOrder(User user, User.Tier tier, List<OrderItemRequest> items, String idempotencyKey) {
+        Map<Long, Integer> quantities = quantitiesByBook(items);
+        if (idempotencyKey == null) {
+            Order order = placeWithRetry(user, tier, items, quantities, null);
+            publishStockChanged(quantities);
+            return order;
+        }
+
+        AtomicReference<Order> placed = new AtomicReference<>();
+        Long orderId = orderIdempotency.submit(user.getId(), idempotencyKey, quantities, () -> {
+            placed.set(placeWithRetry(user, tier, items, quantities, idempotencyKey));
+            publishStockChanged(quantities);
+            return placed.get().getId();
+        });
+        if (placed.get() != null) {
+            return placed.get();
+        }
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+    }
+
+    /**
+     * Prices the items exactly as placing them would, without placing anything. The books are
+     * read with one query; promotions are evaluated in memory.
+     */
+    public PricingEngine.Quote quote(User.Tier tier, List<OrderItemRequest> items) {
+        Map<Long, Book> books = loadBooks(quantitiesByBook(items).keySet());
+        return pricingEngine.quote(tier, cart(items, books));
+    }
+
+    /**
+     * Changes an order's status, if {@link Order.OrderStatus#canTransitionTo} allows it; setting
+     * the current status again does nothing. Cancelling an order puts its stock back; the order
+     * row is locked first so two concurrent cancels cannot return it twice.
+     */
+    public Optional<Order> updateStatus(Long orderId, Order.OrderStatus status) {
+        Map<Long, Integer> returned = new TreeMap<>();
+        Optional<Order> updated = transactionTemplate.execute(tx -> orderRepository.findByIdForUpdate(orderId)
+                .map(order -> {
+                    Order.OrderStatus previous = order.getStatus();
+                    if (previous != status && !previous.canTransitionTo(status)) {
+                        throw new IllegalStatusTransitionException(previous, status);
+                    }
+                    if (status == Order.OrderStatus.CANCELLED && previous != Order.OrderStatus.CANCELLED) {
+                        order.getOrderItems().forEach(item ->
+                                returned.merge(item.getBook().getId(), item.getQuantity(), Math::addExact));
+                        returned.forEach(this::returnStock);
+                    }
+                    order.setStatus(status);
+                    if (previous != status) {
+                        orderOutbox.append(OrderChangedEvent.statusChanged(order, previous));
+                    }
+                    return order;
+                }));
+
+        publishStockChanged(returned);
+        return updated;
+    }
+
+    private Order placeWithRetry(User user, User.Tier tier, List<OrderItemRequest> items,
+                                 Map<Long, Integer> quantities, String idempotencyKey) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status ->
+                        createOrder(user, tier, items, quantities, idempotencyKey));
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private Order createOrder(User user, User.Tier tier, List<OrderItemRequest> items,
+                              Map<Long, Integer> quantities, String idempotencyKey) {
+        Map<Long, Book> books = loadBooks(quantities.keySet());
+
+        // Rows are updated in id order so concurrent orders lock them in the same sequence
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Book book = books.get(entry.getKey());
+            if (book == null) {
+                throw new RuntimeException("Book not found: " + entry.getKey());
+            }
+            if (!takeStock(book, entry.getValue())) {
+                throw new InsufficientStockException(book.getTitle());
+            }
+        }
+
+        Order order = new Order();
+        order.setUser(user);
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+
+        // The same pricing as a quote; line totals are after promotions
+        PricingEngine.Quote quote = pricingEngine.quote(tier, cart(items, books));
+        if (quote.total().cents() > MAX_TOTAL_CENTS) {
+            throw new InvalidAmountException(quote.total().toBigDecimal());
+        }
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Book book = books.get(items.get(i).getBookId());
+            PricingEngine.LineQuote line = quote.lines().get(i);
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setBook(book);
+            orderItem.setQuantity(line.quantity());
+            orderItem.setBookTitle(book.getTitle());
+            orderItem.setBookIsbn(book.getIsbn());
+            orderItem.setUnitPrice(line.unitPrice());
+            orderItem.setPrice(line.total());
+            orderItems.add(orderItem);
+        }
+
+        order.setOrderItems(orderItems);
+        order.setTotalAmount(quote.total());
+        Order saved = orderRepository.save(order);
+        if (idempotencyKey != null) {
+            orderIdempotency.record(user.getId(), idempotencyKey, quantities, saved.getId());
+        }
+        orderOutbox.append(OrderChangedEvent.placed(saved));
+        return saved;
+    }
+
+    private Map<Long, Book> loadBooks(Collection<Long> ids) {
+        return bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+    }
+
+    private static List<PricingEngine.CartLine> cart(List<OrderItemRequest> items, Map<Long, Book> books) {
+        List<PricingEngine.CartLine> cart = new ArrayList<>(items.size());
+        for (OrderItemRequest item : items) {
+            Book book = books.get(item.getBookId());
+            if (book == null) {
+                throw new RuntimeException("Book not found: " + item.getBookId());
+            }
+            cart.add(new PricingEngine.CartLine(book, item.getQuantity()));
+        }
+        return cart;
+    }
+
+    private boolean takeStock(Book book, int quantity) {
+        if (stockEngine.isEnabled()) {
+            return stockEngine.reserve(book.getId(), quantity);
+        }
+        return book.getStockQuantity() >= quantity && bookRepository.decrementStock(book.getId(), quantity) > 0;
+    }
+
+    private void returnStock(Long bookId, int quantity) {
+        if (stockEngine.isEnabled()) {
+            stockEngine.release(bookId, quantity);
+        } else {
+            bookRepository.incrementStock(bookId, quantity);
+        }
+    }
+
+    // In write-behind mode the books rows only change when the engine flushes, which publishes then
+    private void publishStockChanged(Map<Long, Integer> quantities) {
+        if (!stockEngine.isEnabled()) {
+            quantities.keySet().forEach(bookId -> eventPublisher.publishEvent(BookChangedEvent.stockChanged(bookId)));
+        }
+    }
+
+    // Lines for the same book are added up; a quantity that is not positive or a sum that overflows is rejected
+    private Map<Long, Integer> quantitiesByBook(List<OrderItemRequest> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemRequest item : items) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new InvalidQuantityException(item.getBookId());
+            }
+            try {
+                quantities.merge(item.getBookId(), item.getQuantity(), Math::addExact);
+            } catch (ArithmeticException ex) {
+                throw new InvalidQuantityException(item.getBookId());
+            }
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,82 @@
+package com.bookstore.api.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Settings that only affect how fast an instance starts; the prod profile turns them on.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupConfig.class);
+
+    /**
+     * Migrations normally run on startup. The CDS training run of the {@code startup} Maven
+     * profile has no database and turns them off with {@code app.schema.migrate-on-startup=false};
+     * this has to be a runtime switch because AOT fixes {@code spring.flyway.enabled} at build time.
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${app.schema.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            } else {
+                log.info("Skipping schema migrations (app.schema.migrate-on-startup=false)");
+            }
+        };
+    }
+
+    @Bean
+    public static BeanFactoryPostProcessor lazySpringdoc() {
+        return new LazySpringdocPostProcessor();
+    }
+
+    /**
+     * With {@code app.startup.lazy-springdoc}, springdoc's beans are created on the first request
+     * to the API docs or Swagger UI instead of during startup. Their request mappings are still
+     * registered, since handler detection only needs the bean type.
+     */
+    static class LazySpringdocPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+        private boolean enabled;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            this.enabled = environment.getProperty("app.startup.lazy-springdoc", Boolean.class, false);
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            if (!enabled) {
+                return;
+            }
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (isSpringdoc(definition)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        }
+
+        private static boolean isSpringdoc(BeanDefinition definition) {
+            String className = definition.getBeanClassName();
+            // @Bean methods have no bean class; the configuration class that declares them tells
+            if (definition instanceof AnnotatedBeanDefinition annotated && annotated.getFactoryMethodMetadata() != null) {
+                className = annotated.getFactoryMethodMetadata().getDeclaringClassName();
+            }
+            return className != null && className.startsWith("org.springdoc.");
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.bookstore.api.stock;
+
+import com.bookstore.api.event.BookChangedEvent;
+import com.bookstore.api.model.StockJournalEntry;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.StockJournalRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Holds the stock of ordered books in memory so orders for a hot title do not queue up on its
+ * {@code books} row. Reservations take from a lock-free counter and are journaled in the order's
+ * transaction; a scheduled flush folds the journal into {@code books.stock_quantity} with batched
+ * updates. The journal is what makes this crash safe: anything not yet flushed is applied on the
+ * next startup, and counters are always loaded as stored stock plus pending journal entries.
+ * <p>
+ * Counters are local to one instance, so the engine is opt-in via
+ * {@code app.stock.write-behind.enabled} and only suitable for a single application instance.
+ */
+@Component
+public class StockReservationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationEngine.class);
+
+    private static final int FLUSH_BATCH_SIZE = 1000;
+    private static final String APPLY_SQL = "update books set stock_quantity = stock_quantity + ?, version = version + 1 where id = ?";
+
+    private final BookRepository bookRepository;
+    private final StockJournalRepository journalRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+
+    private final ConcurrentMap<Long, AtomicInteger> counters = new ConcurrentHashMap<>();
+    // Two drains reading the same journal rows would apply them twice. Also held while stock is
+    // overwritten and while a counter is loaded, so neither sees stored stock change underneath
+    private final Lock drainLock = new ReentrantLock();
+
+    public StockReservationEngine(BookRepository bookRepository,
+                                  StockJournalRepository journalRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${app.stock.write-behind.enabled:false}") boolean enabled) {
+        this.bookRepository = bookRepository;
+        this.journalRepository = journalRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes stock from the book's counter and journals it in the current transaction. Returns
+     * false, taking nothing, when not enough is left. The stock is given back if the transaction
+     * rolls back.
+     */
+    public boolean reserve(Long bookId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        AtomicInteger counter = counter(bookId);
+        if (counter == null) {
+            return false;
+        }
+        int available;
+        do {
+            available = counter.get();
+            if (available < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(available, available - quantity));
+
+        afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                counter.addAndGet(quantity);
+            }
+        });
+        journalRepository.save(new StockJournalEntry(bookId, -quantity));
+        return true;
+    }
+
+    /**
+     * Journals stock coming back (e.g. from a cancelled order) in the current transaction. The
+     * counter only grows once the transaction commits.
+     */
+    public void release(Long bookId, int quantity) {
+        AtomicInteger counter = counter(bookId);
+        journalRepository.save(new StockJournalEntry(bookId, quantity));
+        if (counter != null) {
+            afterCompletion(status -> {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    counter.addAndGet(quantity);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs a write that sets stored stock outright, such as an admin edit or an import, and moves
+     * the counters of the given books by as much as their stored stock changed. Reservations
+     * already taken from a counter stay taken. The write must have committed when it returns.
+     */
+    public <T> T overwriteStock(Collection<Long> bookIds, Supplier<T> write) {
+        if (!enabled || bookIds.isEmpty()) {
+            return write.get();
+        }
+        drainLock.lock();
+        try {
+            Map<Long, Integer> before = storedStock(bookIds);
+            try {
+                return write.get();
+            } finally {
+                storedStock(bookIds).forEach((bookId, stock) -> {
+                    AtomicInteger counter = counters.get(bookId);
+                    if (counter != null && before.containsKey(bookId)) {
+                        counter.addAndGet(stock - before.get(bookId));
+                    }
+                });
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    // Runs even when the engine is disabled, so switching it off never strands journaled stock
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        int applied = drain();
+        if (applied > 0) {
+            log.info("Applied {} stock journal entries left from a previous run", applied);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    // Edits that write stock go through overwriteStock; dropping a live counter would lose the
+    // reservations of orders that have not committed yet
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.Type.DELETED) {
+            counters.remove(event.bookId());
+        }
+    }
+
+    int drain() {
+        drainLock.lock();
+        try {
+            int applied = 0;
+            List<StockJournalEntry> entries;
+            do {
+                entries = transactionTemplate.execute(status -> applyBatch());
+                entries.stream()
+                        .map(StockJournalEntry::getBookId)
+                        .distinct()
+                        .forEach(bookId -> eventPublisher.publishEvent(BookChangedEvent.stockChanged(bookId)));
+                applied += entries.size();
+            } while (entries.size() == FLUSH_BATCH_SIZE);
+            return applied;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private List<StockJournalEntry> applyBatch() {
+        List<StockJournalEntry> entries = journalRepository.findAllByOrderByIdAsc(PageRequest.of(0, FLUSH_BATCH_SIZE));
+        if (entries.isEmpty()) {
+            return entries;
+        }
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (StockJournalEntry entry : entries) {
+            deltas.merge(entry.getBookId(), entry.getDelta(), Integer::sum);
+        }
+        jdbcTemplate.batchUpdate(APPLY_SQL, deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                .toList());
+        // Deleting exactly the rows read leaves entries committed meanwhile for the next flush
+        journalRepository.deleteAllInBatch(entries);
+        return entries;
+    }
+
+    private AtomicInteger counter(Long bookId) {
+        AtomicInteger counter = counters.get(bookId);
+        if (counter != null) {
+            return counter;
+        }
+        drainLock.lock();
+        try {
+            Integer available = bookRepository.findAvailableStock(bookId);
+            if (available == null) {
+                return null;
+            }
+            AtomicInteger loaded = new AtomicInteger(available);
+            counter = counters.putIfAbsent(bookId, loaded);
+            return counter != null ? counter : loaded;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private Map<Long, Integer> storedStock(Collection<Long> bookIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        for (Object[] row : bookRepository.findStoredStock(bookIds)) {
+            stock.put((Long) row[0], (Integer) row[1]);
+        }
+        return stock;
+    }
+
+    private static void afterCompletion(IntConsumer callback) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status);
+            }
+        });
+    }
+}
@@ -0,0 +1,52 @@
+-- Schema as created by Hibernate's ddl-auto=update for the last release before migrations were
+-- introduced. Databases created that way are baselined at this version instead of running it
+-- (spring.flyway.baseline-on-migrate), so everything added since belongs in a later migration.
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    role enum ('ADMIN','CUSTOMER'),
+    primary key (id)
+) engine=InnoDB;
+
+create table books (
+    id bigint not null auto_increment,
+    title varchar(255) not null,
+    author varchar(255) not null,
+    genre varchar(255) not null,
+    isbn varchar(255) not null,
+    price float(53) not null,
+    description TEXT,
+    stock_quantity integer not null,
+    image_url varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table orders (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    order_date datetime(6),
+    status enum ('CANCELLED','DELIVERED','PENDING','SHIPPED'),
+    payment_status enum ('COMPLETED','FAILED','PENDING'),
+    total_amount float(53),
+    primary key (id)
+) engine=InnoDB;
+
+create table order_items (
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    book_id bigint not null,
+    quantity integer,
+    price float(53),
+    primary key (id)
+) engine=InnoDB;
+
+-- Constraint names are the ones Hibernate generates, so baselined and migrated databases match
+alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table books add constraint UKkibbepcitr0a3cpk3rfr7nihn unique (isbn);
+
+alter table orders add constraint FK32ql8ubntj5uh44ph9659tiih foreign key (user_id) references users (id);
+alter table order_items add constraint FKbioxgbv59vetrxe0ejfubep1w foreign key (order_id) references orders (id);
+alter table order_items add constraint FKi4ptndslo2pyfp9r1x0eulh9g foreign key (book_id) references books (id);
@@ -0,0 +1,81 @@
+-- Schema added since the migration baseline: optimistic locking on books, the book snapshot on order
+-- lines (filled in for existing lines by OrderItemSnapshotBackfill), idempotency keys, the order
+-- outbox, the write-behind stock journal and the sales rollups, plus the listing indexes.
+
+alter table books add column version bigint default 0 not null;
+
+alter table order_items add column unit_price float(53);
+alter table order_items add column book_title varchar(255);
+alter table order_items add column book_isbn varchar(255);
+
+create table order_idempotency_keys (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    idempotency_key varchar(255) not null,
+    request_hash varchar(64) not null,
+    order_id bigint not null,
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table order_outbox (
+    id bigint not null auto_increment,
+    handler varchar(64) not null,
+    order_id bigint not null,
+    payload TEXT not null,
+    attempts integer not null,
+    next_attempt_at datetime(6) not null,
+    last_error varchar(1000),
+    dead bit not null,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table stock_journal (
+    id bigint not null auto_increment,
+    book_id bigint not null,
+    delta integer not null,
+    created_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table sales_by_book (
+    book_id bigint not null,
+    units_sold bigint not null,
+    order_count bigint not null,
+    revenue float(53) not null,
+    primary key (book_id)
+) engine=InnoDB;
+
+create table sales_by_genre (
+    genre varchar(255) not null,
+    units_sold bigint not null,
+    order_count bigint not null,
+    revenue float(53) not null,
+    primary key (genre)
+) engine=InnoDB;
+
+create table sales_by_day (
+    sales_date date not null,
+    units_sold bigint not null,
+    order_count bigint not null,
+    revenue float(53) not null,
+    primary key (sales_date)
+) engine=InnoDB;
+
+create table orders_by_status (
+    status enum ('CANCELLED','DELIVERED','PENDING','SHIPPED') not null,
+    order_count bigint not null,
+    primary key (status)
+) engine=InnoDB;
+
+alter table order_idempotency_keys add constraint uk_order_idempotency_key unique (user_id, idempotency_key);
+
+create index idx_books_title_id on books (title, id);
+create index idx_books_genre_title_id on books (genre, title, id);
+create index idx_orders_order_date_id on orders (order_date, id);
+create index idx_orders_user_order_date_id on orders (user_id, order_date, id);
+create index idx_order_idempotency_created on order_idempotency_keys (created_at);
+create index idx_order_outbox_ready on order_outbox (dead, next_attempt_at, id);
+create index idx_order_outbox_order on order_outbox (order_id, id);
+create index idx_sales_by_book_units on sales_by_book (units_sold);
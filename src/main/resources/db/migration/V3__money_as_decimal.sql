@@ -0,0 +1,17 @@
+-- Money was stored as binary floating point, so line totals and sums picked up rounding drift.
+-- Amounts become DECIMAL columns with two decimals; existing values are rounded to the cent.
+
+alter table books modify column price decimal(12,2) not null;
+
+alter table order_items modify column price decimal(12,2);
+alter table order_items modify column unit_price decimal(12,2);
+
+alter table orders modify column total_amount decimal(14,2);
+
+-- Totals are re-added from the rounded lines so an order always equals the sum of its lines
+update orders set total_amount = (select sum(oi.price) from order_items oi where oi.order_id = orders.id)
+where exists (select 1 from order_items oi where oi.order_id = orders.id);
+
+alter table sales_by_book modify column revenue decimal(14,2) not null;
+alter table sales_by_genre modify column revenue decimal(14,2) not null;
+alter table sales_by_day modify column revenue decimal(14,2) not null;
@@ -0,0 +1,15 @@
+-- Promotion rules for the pricing engine, and the customer tier that TIER_DISCOUNT rules refer to
+
+create table promotion_rules (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    type enum ('BUY_X_GET_Y','GENRE_DISCOUNT','TIER_DISCOUNT') not null,
+    genre varchar(255),
+    tier enum ('GOLD','SILVER','STANDARD'),
+    percent_off integer,
+    buy_quantity integer,
+    free_quantity integer,
+    primary key (id)
+) engine=InnoDB;
+
+alter table users add column tier enum ('GOLD','SILVER','STANDARD') default 'STANDARD' not null;
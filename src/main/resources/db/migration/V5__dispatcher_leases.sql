@@ -0,0 +1,8 @@
+-- Lease that keeps the order outbox dispatcher running on one instance at a time
+
+create table dispatcher_leases (
+    name varchar(64) not null,
+    owner varchar(64),
+    expires_at datetime(6) not null,
+    primary key (name)
+) engine=InnoDB;
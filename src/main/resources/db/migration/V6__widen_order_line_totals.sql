@@ -0,0 +1,3 @@
+-- A line total is the unit price times the quantity, so it needs the width of the order total, not of a price
+
+alter table order_items modify column price decimal(14,2);
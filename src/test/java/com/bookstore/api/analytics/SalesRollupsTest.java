@@ -0,0 +1,158 @@
+package com.bookstore.api.analytics;
+
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.BookSales;
+import com.bookstore.api.model.GenreSales;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.OrderStatusCount;
+import com.bookstore.api.model.User;
+import com.bookstore.api.outbox.OrderOutboxDispatcher;
+import com.bookstore.api.repository.BookSalesRepository;
+import com.bookstore.api.repository.DailySalesRepository;
+import com.bookstore.api.repository.GenreSalesRepository;
+import com.bookstore.api.repository.OrderStatusCountRepository;
+import com.bookstore.api.service.OrderService;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.bookstore.api.support.TestData.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Only the explicit dispatch() calls below deliver events and write the rollups
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:analytics;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.outbox.poll-interval-ms=3600000",
+        "app.analytics.rebuild.batch-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SalesRollupsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SalesRollups salesRollups;
+
+    @Autowired
+    private OrderOutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private BookSalesRepository bookSalesRepository;
+
+    @Autowired
+    private GenreSalesRepository genreSalesRepository;
+
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+
+    @Autowired
+    private OrderStatusCountRepository statusCountRepository;
+
+    private User customer;
+    private Book novel;
+    private Book poems;
+
+    @BeforeEach
+    void setUp() {
+        outboxDispatcher.dispatch();
+        testData.reset();
+        bookSalesRepository.deleteAll();
+        genreSalesRepository.deleteAll();
+        dailySalesRepository.deleteAll();
+        statusCountRepository.deleteAll();
+
+        customer = testData.customer("analytics@example.com");
+        novel = testData.book("novel", "Fiction", "analytics-novel", "10.00", 100);
+        poems = testData.book("poems", "Poetry", "analytics-poems", "4.00", 100);
+    }
+
+    @Test
+    void rollupsFollowPlacedAndCancelledOrders() {
+        orderService.placeOrder(customer, List.of(item(novel, 2), item(poems, 1)));
+        orderService.placeOrder(customer, List.of(item(novel, 1), item(novel, 1)));
+        Order cancelled = orderService.placeOrder(customer, List.of(item(poems, 3)));
+        orderService.updateStatus(cancelled.getId(), Order.OrderStatus.CANCELLED);
+        outboxDispatcher.dispatch();
+
+        Map<Long, BookSales> books = bookSalesRepository.findAll().stream()
+                .collect(Collectors.toMap(BookSales::getBookId, sales -> sales));
+        assertThat(books.get(novel.getId()).getOrderCount()).isEqualTo(2);
+        assertThat(books.get(novel.getId()).getUnitsSold()).isEqualTo(4);
+        assertThat(books.get(novel.getId()).getRevenue()).isEqualTo(Money.of("40.00"));
+        assertThat(books.get(poems.getId()).getUnitsSold()).isEqualTo(1);
+
+        assertThat(genreSalesRepository.findById("Poetry").map(GenreSales::getRevenue)).contains(Money.of("4.00"));
+        assertThat(dailySalesRepository.findById(LocalDate.now()).orElseThrow().getOrderCount()).isEqualTo(2);
+        assertThat(statusCounts())
+                .containsEntry(Order.OrderStatus.PENDING, 2L)
+                .containsEntry(Order.OrderStatus.CANCELLED, 1L);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void rebuildMatchesIncrementalRollups() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            orderService.placeOrder(customer, List.of(item(novel, 1), item(poems, i + 1)));
+        }
+        Order shipped = orderService.placeOrder(customer, List.of(item(poems, 1)));
+        orderService.updateStatus(shipped.getId(), Order.OrderStatus.SHIPPED);
+        outboxDispatcher.dispatch();
+        List<BookSales> incremental = bookSalesRepository.findAll();
+        Map<Order.OrderStatus, Long> incrementalStatuses = statusCounts();
+
+        mockMvc.perform(post("/api/admin/analytics/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders").value(6))
+                .andExpect(jsonPath("$.batches").value(3));
+
+        assertThat(bookSalesRepository.findAll()).containsExactlyInAnyOrderElementsOf(incremental);
+        assertThat(statusCounts()).isEqualTo(incrementalStatuses);
+        mockMvc.perform(get("/api/admin/analytics/bestsellers").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("poems"))
+                .andExpect(jsonPath("$[0].unitsSold").value(16));
+    }
+
+    @Test
+    void rebuildDropsOutboxEntriesItAlreadyScanned() {
+        orderService.placeOrder(customer, List.of(item(novel, 2)));
+        // The order's outbox entry is still waiting when the rebuild scans it
+        salesRollups.rebuild();
+        outboxDispatcher.dispatch();
+        orderService.placeOrder(customer, List.of(item(novel, 1)));
+        outboxDispatcher.dispatch();
+
+        assertThat(bookSalesRepository.findById(novel.getId()).orElseThrow().getUnitsSold()).isEqualTo(3);
+        assertThat(statusCounts()).containsExactly(Map.entry(Order.OrderStatus.PENDING, 2L));
+    }
+
+    private Map<Order.OrderStatus, Long> statusCounts() {
+        return statusCountRepository.findAll().stream()
+                .filter(count -> count.getOrderCount() != 0)
+                .collect(Collectors.toMap(OrderStatusCount::getStatus, OrderStatusCount::getOrderCount));
+    }
+}
@@ -0,0 +1,183 @@
+package com.bookstore.api.cache;
+
+import com.bookstore.api.dto.BookResponse;
+import com.bookstore.api.dto.BookSearchResponse;
+import com.bookstore.api.event.BookChangedEvent;
+import com.bookstore.api.event.BookChangedEvent.ListingFields;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogCacheTest {
+
+    private static final ListingFields DUNE = new ListingFields("Dune", "Frank Herbert", "Sci-Fi", "isbn-1");
+    private static final ListingFields EMMA = new ListingFields("Emma", "Jane Austen", "Classics", "isbn-2");
+
+    private final CatalogCache cache = new CatalogCache(100, 300, 100, 60);
+    private final Map<Object, AtomicInteger> loads = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        List<Future<BookResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(readers.submit(() -> cache.getBook(1L, id -> {
+                loads(id).incrementAndGet();
+                await(release);
+                return book(id);
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<BookResponse> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        }
+        readers.shutdown();
+        assertThat(loads(1L)).hasValue(1);
+        assertThat(cache.getBook(1L, this::loadBook).getId()).isEqualTo(1L);
+        assertThat(loads(1L)).hasValue(1);
+    }
+
+    @Test
+    void missingBooksAreNotCachedAndLoaderFailuresSurfaceAsThrown() {
+        assertThat(cache.getBook(9L, id -> null)).isNull();
+        assertThat(cache.getBook(9L, this::loadBook).getId()).isEqualTo(9L);
+
+        assertThatThrownBy(() -> cache.getBook(10L, id -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("database down");
+    }
+
+    @Test
+    void missesOfABatchAreLoadedTogether() {
+        cache.getBook(1L, this::loadBook);
+        List<Long> requested = new ArrayList<>();
+
+        Map<Long, BookResponse> found = cache.getBooks(List.of(1L, 2L, 3L), missing -> {
+            requested.addAll(missing);
+            return Map.of(2L, book(2L));
+        });
+
+        assertThat(requested).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(found).containsOnlyKeys(1L, 2L);
+    }
+
+    @Test
+    void editThatKeepsTheListingFieldsOnlyDropsPagesShowingTheBook() {
+        BookPageKey withDune = new BookPageKey(0, 10, null, "Sci-Fi");
+        BookPageKey withoutDune = new BookPageKey(0, 10, null, "Classics");
+        cache.getPage(withDune, key -> loadPage(key, 1L));
+        cache.getPage(withoutDune, key -> loadPage(key, 2L));
+        cache.getBook(1L, this::loadBook);
+
+        cache.onBookChanged(BookChangedEvent.updated(1L, DUNE, DUNE));
+
+        assertThat(reloads(withDune, 1L)).isTrue();
+        assertThat(reloads(withoutDune, 2L)).isFalse();
+        cache.getBook(1L, this::loadBook);
+        assertThat(loads(1L)).hasValue(2);
+    }
+
+    @Test
+    void movedBookDropsEveryPageItCouldAppearOnBeforeOrAfter() {
+        BookPageKey sciFi = new BookPageKey(0, 10, null, "Sci-Fi");
+        BookPageKey classics = new BookPageKey(0, 10, null, "Classics");
+        BookPageKey fantasy = new BookPageKey(0, 10, null, "Fantasy");
+        BookPageKey searchHerbert = new BookPageKey(0, 10, "herbert", null);
+        BookPageKey searchAusten = new BookPageKey(0, 10, "austen", null);
+        cache.getPage(sciFi, key -> loadPage(key, 1L));
+        cache.getPage(classics, key -> loadPage(key, 2L));
+        cache.getPage(fantasy, key -> loadPage(key));
+        cache.getPage(searchHerbert, key -> loadPage(key, 1L));
+        cache.getPage(searchAusten, key -> loadPage(key, 2L));
+
+        // Dune becomes a Classic: it leaves one genre and may now sort into the other
+        cache.onBookChanged(BookChangedEvent.updated(1L, DUNE,
+                new ListingFields("Dune", "Frank Herbert", "Classics", "isbn-1")));
+
+        assertThat(reloads(sciFi, 1L)).isTrue();
+        assertThat(reloads(classics, 2L)).isTrue();
+        assertThat(reloads(searchHerbert, 1L)).isTrue();
+        assertThat(reloads(fantasy)).isFalse();
+        assertThat(reloads(searchAusten, 2L)).isFalse();
+    }
+
+    @Test
+    void newBookDropsMatchingPagesAndStockChangesKeepThem() {
+        BookPageKey classics = new BookPageKey(0, 10, null, "Classics");
+        BookPageKey sciFi = new BookPageKey(0, 10, null, "Sci-Fi");
+        cache.getPage(classics, key -> loadPage(key, 2L));
+        cache.getPage(sciFi, key -> loadPage(key, 1L));
+
+        cache.onBookChanged(BookChangedEvent.stockChanged(1L));
+        assertThat(reloads(sciFi, 1L)).isFalse();
+
+        cache.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.CREATED, 3L, null,
+                new ListingFields("Persuasion", "Jane Austen", "Classics", "isbn-3")));
+        assertThat(reloads(classics, 2L)).isTrue();
+        assertThat(reloads(sciFi, 1L)).isFalse();
+    }
+
+    // True when the page had to be loaded again
+    private boolean reloads(BookPageKey key, Long... bookIds) {
+        int before = loads(key).get();
+        cache.getPage(key, k -> loadPage(k, bookIds));
+        return loads(key).get() > before;
+    }
+
+    private Page<BookSearchResponse> loadPage(BookPageKey key, Long... bookIds) {
+        loads(key).incrementAndGet();
+        List<BookSearchResponse> content = new ArrayList<>();
+        for (Long id : bookIds) {
+            BookSearchResponse book = new BookSearchResponse();
+            book.setId(id);
+            content.add(book);
+        }
+        return new PageImpl<>(content);
+    }
+
+    private BookResponse loadBook(Long id) {
+        loads(id).incrementAndGet();
+        return book(id);
+    }
+
+    private AtomicInteger loads(Object key) {
+        return loads.computeIfAbsent(key, k -> new AtomicInteger());
+    }
+
+    private static BookResponse book(Long id) {
+        BookResponse book = new BookResponse();
+        book.setId(id);
+        return book;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.bookstore.api.controller;
+
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void loginLooksUpTheUserOnce() throws Exception {
+        saveUser("reader@example.com", new BCryptPasswordEncoder(10).encode("secret"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        login("reader@example.com", "secret", "10.0.0.1")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("reader@example.com"))
+                .andExpect(jsonPath("$.token").isNotEmpty());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void loginUpgradesAWeakerHash() throws Exception {
+        User user = saveUser("legacy@example.com", new BCryptPasswordEncoder(4).encode("secret"));
+
+        login("legacy@example.com", "secret", "10.0.0.2").andExpect(status().isOk());
+
+        String upgraded = user.getPassword();
+        for (int i = 0; i < 50 && upgraded.startsWith("$2a$04$"); i++) {
+            Thread.sleep(100);
+            upgraded = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        }
+        assertThat(upgraded).startsWith("$2a$10$");
+        assertThat(new BCryptPasswordEncoder().matches("secret", upgraded)).isTrue();
+    }
+
+    @Test
+    void repeatedFailuresThrottleTheAccount() throws Exception {
+        saveUser("target@example.com", new BCryptPasswordEncoder(4).encode("secret"));
+
+        for (int i = 0; i < 5; i++) {
+            login("target@example.com", "wrong-" + i, "10.0.0." + (10 + i)).andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(loginRequest("target@example.com", "secret", "10.0.0.99"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "60"));
+    }
+
+    private User saveUser(String email, String encodedPassword) {
+        User user = new User();
+        user.setName("Reader");
+        user.setEmail(email);
+        user.setPassword(encodedPassword);
+        user.setRole(User.Role.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private ResultActions login(String email, String password, String address) throws Exception {
+        MvcResult started = mockMvc.perform(loginRequest(email, password, address))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
+    private MockHttpServletRequestBuilder loginRequest(
+            String email, String password, String address) {
+        return post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}")
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                });
+    }
+}
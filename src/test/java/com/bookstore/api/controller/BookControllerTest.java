@@ -0,0 +1,208 @@
+package com.bookstore.api.controller;
+
+import com.bookstore.api.dto.OrderItemRequest;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.repository.UserRepository;
+import com.bookstore.api.service.OrderService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+
+        book = new Book();
+        book.setTitle("Versioned");
+        book.setAuthor("Author");
+        book.setGenre("Conditional");
+        book.setIsbn("etag-1");
+        book.setPrice(Money.of("10.00"));
+        book.setStockQuantity(5);
+        book = bookRepository.save(book);
+    }
+
+    @Test
+    void bookIsNotModifiedUntilItsStockChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).isEqualTo("\"" + book.getId() + "-0\"");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/books/{id}", book.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        User customer = new User();
+        customer.setName("Customer");
+        customer.setEmail("etag@example.com");
+        customer.setPassword("secret");
+        customer.setRole(User.Role.CUSTOMER);
+        OrderItemRequest item = new OrderItemRequest();
+        item.setBookId(book.getId());
+        item.setQuantity(1);
+        orderService.placeOrder(userRepository.save(customer), List.of(item));
+
+        mockMvc.perform(get("/api/books/{id}", book.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"stockQuantity\":4")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void listingIsNotModifiedUntilABookOnThePageChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/books").param("genre", "Conditional"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/books").param("genre", "Conditional").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/api/books/{id}", book.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Versioned\",\"author\":\"Author\",\"genre\":\"Conditional\"," +
+                                "\"isbn\":\"etag-1\",\"price\":12.0,\"stockQuantity\":5}"))
+                .andExpect(status().isOk());
+
+        String changed = mockMvc.perform(get("/api/books").param("genre", "Conditional").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    private Book saveBook(String title, String isbn) {
+        Book keyed = new Book();
+        keyed.setTitle(title);
+        keyed.setAuthor("Author");
+        keyed.setGenre("Keyset");
+        keyed.setIsbn(isbn);
+        keyed.setPrice(Money.of("10.00"));
+        keyed.setStockQuantity(1);
+        return bookRepository.save(keyed);
+    }
+
+    @Test
+    void keysetPagesWalkTiedTitlesByIdWithoutGapsOrRepeats() throws Exception {
+        List<Long> expected = new ArrayList<>();
+        expected.add(saveBook("Alpha", "keyset-0").getId());
+        for (int i = 1; i <= 4; i++) {
+            expected.add(saveBook("Tied", "keyset-" + i).getId());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            String body = mockMvc.perform(get("/api/books").param("after", cursor).param("size", "2")
+                            .param("genre", "Keyset"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Integer> ids = JsonPath.read(body, "$.content[*].id");
+            ids.forEach(id -> seen.add(id.longValue()));
+            cursor = JsonPath.read(body, "$.nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void keysetPagesRejectBadSizesAndCursors() throws Exception {
+        mockMvc.perform(get("/api/books").param("after", "").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/books").param("after", "").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/books").param("after", "not a cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Invalid page cursor")));
+        mockMvc.perform(get("/api/books").param("after", "").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Versioned"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportRejectsUnknownFormats() throws Exception {
+        mockMvc.perform(get("/api/books/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Unsupported format: xml")));
+        mockMvc.perform(get("/api/books/export").param("format", "CSV"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void browseRejectsPagesBeyondTheOffsetBound() throws Exception {
+        mockMvc.perform(get("/api/books/browse").param("page", "2000000").param("size", "100"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/books/browse").param("page", "100").param("size", "100"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void browseRejectsOutOfRangePrices() throws Exception {
+        mockMvc.perform(get("/api/books/browse").param("minPrice", "1E+999999999"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/books/browse").param("maxPrice", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("maxPrice must not be negative")));
+        mockMvc.perform(get("/api/books/browse").param("minPrice", "5.00").param("maxPrice", "20"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,195 @@
+package com.bookstore.api.controller;
+
+import com.bookstore.api.dto.OrderItemRequest;
+import com.bookstore.api.dto.PageCursor;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.repository.UserRepository;
+import com.bookstore.api.service.OrderService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+
+        List<User> customers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setName("Customer " + i);
+            user.setEmail("customer" + i + "@example.com");
+            user.setPassword("secret");
+            user.setRole(User.Role.CUSTOMER);
+            customers.add(userRepository.save(user));
+        }
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthor("Author");
+            book.setGenre("Fiction");
+            book.setIsbn("isbn-" + i);
+            book.setPrice(Money.of("10.00"));
+            book.setStockQuantity(100);
+            books.add(bookRepository.save(book));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            orderService.placeOrder(customers.get(i % 3), List.of(
+                    item(books.get(i % 5).getId()), item(books.get((i + 1) % 5).getId()), item(books.get((i + 2) % 5).getId())));
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void listingAPageUsesAFixedNumberOfQueries() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/orders").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(10))
+                .andExpect(jsonPath("$.content[0].items.length()").value(3));
+
+        // orders joined with customers, the count, then one batch for items; books are never read
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    @WithMockUser(username = "customer0@example.com", roles = "CUSTOMER")
+    void quotesRejectQuantitiesTooLargeToPrice() throws Exception {
+        Book book = new Book();
+        book.setTitle("Expensive");
+        book.setAuthor("Author");
+        book.setGenre("Fiction");
+        book.setIsbn("isbn-expensive");
+        book.setPrice(Money.of("9999999999.99"));
+        book.setStockQuantity(1);
+        Long bookId = bookRepository.save(book).getId();
+        String line = "{\"bookId\":" + bookId + ",\"quantity\":10000}";
+
+        mockMvc.perform(post("/api/orders/quote").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"bookId\":" + bookId + ",\"quantity\":10001}]}"))
+                .andExpect(status().isBadRequest());
+        // Each line is allowed, but a thousand of them overflow the cents of the subtotal
+        mockMvc.perform(post("/api/orders/quote").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[" + String.join(",", Collections.nCopies(1000, line)) + "]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "customer0@example.com", roles = "CUSTOMER")
+    void placingAnOrderNeverLoadsTheCustomer() throws Exception {
+        Long bookId = bookRepository.findAll().get(0).getId();
+        String order = "{\"items\":[{\"bookId\":" + bookId + ",\"quantity\":1}]}";
+        // The first order resolves the principal; later ones find it in the user directory
+        mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(order))
+                .andExpect(status().isCreated());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(order))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.customerName").value("Customer 0"))
+                .andExpect(jsonPath("$.customerEmail").value("customer0@example.com"));
+
+        // the book, its stock update, the order, its line and the outbox entry; never the users row
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void keysetPagesFollowTheCursorToTheLastOrder() throws Exception {
+        List<Long> expected = orderRepository.findAll().stream()
+                .sorted(Comparator.comparing(Order::getOrderDate).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        do {
+            String body = mockMvc.perform(get("/api/orders").param("after", cursor).param("size", "4"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Integer> ids = JsonPath.read(body, "$.content[*].id");
+            ids.forEach(id -> seen.add(id.longValue()));
+            cursor = JsonPath.read(body, "$.nextCursor");
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @WithMockUser(username = "customer0@example.com", roles = "CUSTOMER")
+    void keysetPagesRejectBadSizesAndCursors() throws Exception {
+        mockMvc.perform(get("/api/orders/my-orders").param("after", "").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/my-orders").param("after", "").param("size", "101"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/my-orders").param("after", new PageCursor(1L, "yesterday").encode()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/my-orders").param("after", "").param("size", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(4));
+    }
+
+    private OrderItemRequest item(Long bookId) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setBookId(bookId);
+        item.setQuantity(1);
+        return item;
+    }
+}
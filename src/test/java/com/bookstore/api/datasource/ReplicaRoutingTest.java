@@ -0,0 +1,131 @@
+package com.bookstore.api.datasource;
+
+import com.bookstore.api.model.Book;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against two in-memory databases. Replication is simulated by copying the primary into the
+ * replica in setUp; the replica's copy of the book is then renamed so each response shows which
+ * database served it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "app.datasource.replicas.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replicas.lag-query=select seconds from replica_lag",
+        "app.datasource.replicas.health-check-interval-ms=3600000",
+        "app.catalog-cache.book-max-size=0",
+        "app.catalog-cache.page-max-size=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    @Autowired
+    private ReplicaHealthMonitor healthMonitor;
+
+    @Autowired
+    private TestData testData;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        testData.reset();
+        testData.customer("reader@example.com");
+        book = testData.book("From primary", "Fiction", "routing-1", "10.00", 5);
+
+        replica.execute("drop all objects");
+        primary.queryForList("script", String.class).forEach(replica::execute);
+        replica.update("update books set title = 'From replica'");
+        replica.execute("create table replica_lag (seconds bigint)");
+        replica.update("insert into replica_lag values (0)");
+        healthMonitor.check();
+    }
+
+    @Test
+    void catalogReadsGoToTheReplica() throws Exception {
+        mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("From replica"));
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("From replica"));
+    }
+
+    @Test
+    void laggingReplicaIsTakenOutOfRotation() throws Exception {
+        replica.update("update replica_lag set seconds = 60");
+        healthMonitor.check();
+
+        mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(jsonPath("$.title").value("From primary"));
+    }
+
+    @Test
+    void unreachableReplicaIsTakenOutOfRotation() throws Exception {
+        replica.execute("drop all objects");
+        healthMonitor.check();
+
+        mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(jsonPath("$.title").value("From primary"));
+    }
+
+    @Test
+    @WithMockUser(username = "reader@example.com", roles = "CUSTOMER")
+    void customerSeesTheirOwnNewOrder() throws Exception {
+        mockMvc.perform(get("/api/orders/my-orders"))
+                .andExpect(jsonPath("$.content.length()").value(0));
+
+        mockMvc.perform(post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"bookId\":" + book.getId() + ",\"quantity\":1}]}"))
+                .andExpect(status().isCreated());
+
+        // The replica never receives the order; only the read-your-writes pin can find it
+        mockMvc.perform(get("/api/orders/my-orders"))
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].items[0].bookTitle").value("From primary"));
+    }
+
+    @Test
+    @WithMockUser(username = "reader@example.com", roles = "CUSTOMER")
+    void quotesAreReadsAndDoNotPinTheCustomer() throws Exception {
+        replica.update("update books set price = 7.00");
+
+        mockMvc.perform(post("/api/orders/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"bookId\":" + book.getId() + ",\"quantity\":1}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(7.00));
+
+        mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(jsonPath("$.title").value("From replica"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.bookstore.api.feed;
+
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.User;
+import com.bookstore.api.service.OrderService;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.bookstore.api.support.TestData.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN")
+class OrderFeedTest {
+
+    // An event is written in several parts, so only count those that have reached their blank line
+    private static final Pattern EVENT = Pattern.compile("(?m)^event:.*\\n(?:.+\\n)*\\n");
+    private static final Pattern EVENT_ID = Pattern.compile("(?m)^id:(\\S+)");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestData testData;
+
+    private User customer;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        testData.reset();
+        customer = testData.customer("customer@example.com");
+        book = testData.book("isbn-1", 100);
+    }
+
+    @Test
+    void streamsCommittedOrderChanges() throws Exception {
+        MockHttpServletResponse stream = subscribe(null);
+
+        Order order = placeOrder();
+        orderService.updateStatus(order.getId(), Order.OrderStatus.SHIPPED);
+
+        String body = awaitEvents(stream, 2);
+        assertThat(body).contains("event:order-placed").contains("\"orderId\":" + order.getId());
+        assertThat(body.indexOf("event:order-status-changed")).isGreaterThan(body.indexOf("event:order-placed"));
+        assertThat(body).contains("\"status\":\"SHIPPED\"");
+    }
+
+    @Test
+    void replaysEventsAfterTheLastEventId() throws Exception {
+        MockHttpServletResponse first = subscribe(null);
+        Order missedBefore = placeOrder();
+        String lastEventId = eventIds(awaitEvents(first, 1)).get(0);
+        Order missed = placeOrder();
+
+        String replayed = awaitEvents(subscribe(lastEventId), 1);
+        assertThat(replayed).contains("\"orderId\":" + missed.getId())
+                .doesNotContain("\"orderId\":" + missedBefore.getId() + ",");
+
+        String reset = awaitEvents(subscribe("unknown-1"), 1);
+        assertThat(reset).contains("event:reset");
+    }
+
+    private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+        var request = get("/api/admin/orders/feed");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private Order placeOrder() {
+        return orderService.placeOrder(customer, List.of(item(book, 1)));
+    }
+
+    private static String awaitEvents(MockHttpServletResponse stream, int count) throws Exception {
+        String body = stream.getContentAsString();
+        for (int i = 0; i < 50 && EVENT.matcher(body).results().count() < count; i++) {
+            Thread.sleep(100);
+            body = stream.getContentAsString();
+        }
+        return body;
+    }
+
+    private static List<String> eventIds(String body) {
+        Matcher matcher = EVENT_ID.matcher(body);
+        return matcher.results().map(result -> result.group(1)).toList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookstore.api.model;
+
+import com.bookstore.api.exception.InvalidAmountException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void roundsFinerAmountsHalfUpToTheCent() {
+        assertThat(Money.of("19.99").cents()).isEqualTo(1999);
+        assertThat(Money.of("0.005").cents()).isEqualTo(1);
+        assertThat(Money.of("0.0049").cents()).isZero();
+        assertThat(Money.of(BigDecimal.valueOf(0.1 + 0.2)).cents()).isEqualTo(30);
+        assertThat(Money.of("-2.345").cents()).isEqualTo(-235);
+    }
+
+    @Test
+    void tinyAmountsAreZeroWithoutRescaling() {
+        assertThat(Money.of("1E-999999999")).isEqualTo(Money.ZERO);
+        assertThat(Money.of("0E-999999999")).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void rejectsAmountsThatDoNotFitInCents() {
+        assertThat(Money.of("9999999999999999.99").cents()).isEqualTo(999999999999999999L);
+        assertThatThrownBy(() -> Money.of("99999999999999999"))
+                .isInstanceOf(InvalidAmountException.class);
+        assertThatThrownBy(() -> Money.of("1E+999999999"))
+                .isInstanceOf(InvalidAmountException.class);
+    }
+
+    @Test
+    void overflowingArithmeticThrows() {
+        Money large = Money.ofCents(Long.MAX_VALUE);
+        assertThatThrownBy(() -> large.plus(Money.ofCents(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> large.times(2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void roundTripsThroughJsonAsAPlainNumber() throws Exception {
+        String json = objectMapper.writeValueAsString(Money.of("12.50"));
+
+        assertThat(json).isEqualTo("12.50");
+        assertThat(objectMapper.readValue(json, Money.class)).isEqualTo(Money.ofCents(1250));
+        assertThat(objectMapper.readValue("3", Money.class)).isEqualTo(Money.ofCents(300));
+    }
+}
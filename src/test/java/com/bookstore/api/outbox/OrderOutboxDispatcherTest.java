@@ -0,0 +1,165 @@
+package com.bookstore.api.outbox;
+
+import com.bookstore.api.event.OrderChangedEvent;
+import com.bookstore.api.exception.InsufficientStockException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.DispatcherLease;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.DispatcherLeaseRepository;
+import com.bookstore.api.repository.OrderOutboxRepository;
+import com.bookstore.api.service.OrderService;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.bookstore.api.support.TestData.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Only the explicit dispatch() calls below deliver entries
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.outbox.poll-interval-ms=3600000",
+        "app.outbox.initial-backoff-ms=200",
+        "app.outbox.max-attempts=3"
+})
+@ActiveProfiles("test")
+class OrderOutboxDispatcherTest {
+
+    @Autowired
+    private OrderOutboxDispatcher dispatcher;
+
+    @Autowired
+    private RecordingHandler handler;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+
+    @Autowired
+    private DispatcherLeaseRepository leaseRepository;
+
+    @Autowired
+    private TestData testData;
+
+    private User customer;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        testData.reset();
+        handler.received.clear();
+        handler.failing.clear();
+
+        customer = testData.customer("outbox@example.com");
+        book = testData.book("Outbox", "Fiction", "outbox-1", "5.00", 10);
+    }
+
+    @Test
+    void failedEventHoldsBackLaterEventsOfTheSameOrderOnly() throws Exception {
+        Order failing = orderService.placeOrder(customer, List.of(item(book, 1)));
+        Order other = orderService.placeOrder(customer, List.of(item(book, 1)));
+        orderService.updateStatus(failing.getId(), Order.OrderStatus.SHIPPED);
+        handler.failing.add(failing.getId());
+
+        dispatcher.dispatch();
+        assertThat(handler.received).containsExactly(other.getId() + ":PENDING");
+
+        // The failed entry is backing off, so its order's SHIPPED event must not overtake it
+        handler.failing.clear();
+        dispatcher.dispatch();
+        assertThat(handler.received).hasSize(1);
+
+        Thread.sleep(300);
+        dispatcher.dispatch();
+        assertThat(handler.received).containsExactly(other.getId() + ":PENDING",
+                failing.getId() + ":PENDING", failing.getId() + ":SHIPPED");
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void entryIsGivenUpOnAfterMaxAttempts() throws Exception {
+        Order order = orderService.placeOrder(customer, List.of(item(book, 1)));
+        handler.failing.add(order.getId());
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            dispatcher.dispatch();
+            Thread.sleep(200L << attempt);
+        }
+
+        assertThat(outboxRepository.findAll()).singleElement()
+                .satisfies(entry -> {
+                    assertThat(entry.isDead()).isTrue();
+                    assertThat(entry.getAttempts()).isEqualTo(3);
+                    assertThat(entry.getLastError()).contains("Handler failed");
+                });
+    }
+
+    @Test
+    void deliversNothingWhileAnotherInstanceHoldsTheLease() {
+        DispatcherLease lease = new DispatcherLease("order-outbox", LocalDateTime.now().plusMinutes(1));
+        lease.setOwner("other-instance");
+        leaseRepository.save(lease);
+        Order order = orderService.placeOrder(customer, List.of(item(book, 1)));
+
+        assertThat(dispatcher.dispatch()).isZero();
+        assertThat(handler.received).isEmpty();
+
+        // The other instance stopped renewing
+        lease.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        leaseRepository.save(lease);
+        dispatcher.dispatch();
+        assertThat(handler.received).containsExactly(order.getId() + ":PENDING");
+    }
+
+    @Test
+    void rolledBackOrderLeavesNoOutboxEntry() {
+        assertThatThrownBy(() -> orderService.placeOrder(customer, List.of(item(book, 11))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @TestConfiguration
+    static class Handlers {
+
+        @Bean
+        RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+    }
+
+    static class RecordingHandler implements OrderEventHandler {
+
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final Set<Long> failing = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void handle(OrderChangedEvent event) {
+            if (failing.contains(event.orderId())) {
+                throw new IllegalStateException("Handler failed for order " + event.orderId());
+            }
+            received.add(event.orderId() + ":" + event.status());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.bookstore.api.pricing;
+
+import com.bookstore.api.exception.InvalidPromotionRuleException;
+import com.bookstore.api.exception.InvalidQuantityException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.PromotionRule;
+import com.bookstore.api.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PricingEngineTest {
+
+    private PricingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PricingEngine(null, null);
+        engine.load(List.of(
+                rule("Poetry sale", PromotionRule.Type.GENRE_DISCOUNT, "Poetry", null, 20, null, null),
+                rule("3 for 2", PromotionRule.Type.BUY_X_GET_Y, "Poetry", null, null, 2, 1),
+                rule("Everything 5% off", PromotionRule.Type.GENRE_DISCOUNT, null, null, 5, null, null),
+                rule("Gold", PromotionRule.Type.TIER_DISCOUNT, null, User.Tier.GOLD, 15, null, null)), 7);
+    }
+
+    @Test
+    void takesTheBetterLinePromotion() {
+        Book poems = book(1L, "Poetry", "10.00");
+        Book novel = book(2L, "Fiction", "10.00");
+
+        PricingEngine.Quote quote = engine.quote(User.Tier.STANDARD, List.of(
+                new PricingEngine.CartLine(poems, 2),
+                new PricingEngine.CartLine(poems, 3),
+                new PricingEngine.CartLine(novel, 1)));
+
+        // 20% beats 3 for 2 on two copies, and loses to it on three; the catch-all covers Fiction
+        assertThat(quote.lines()).extracting(PricingEngine.LineQuote::total)
+                .containsExactly(Money.of("16.00"), Money.of("20.00"), Money.of("9.50"));
+        assertThat(quote.lines()).extracting(PricingEngine.LineQuote::promotions)
+                .containsExactly(List.of("Poetry sale"), List.of("3 for 2"), List.of("Everything 5% off"));
+        assertThat(quote.subtotal()).isEqualTo(Money.of("60.00"));
+        assertThat(quote.total()).isEqualTo(Money.of("45.50"));
+        assertThat(quote.ruleSetVersion()).isEqualTo(7);
+    }
+
+    @Test
+    void appliesTheTierDiscountAfterLinePromotionsRoundingDown() {
+        Book novel = book(2L, "Fiction", "9.99");
+
+        PricingEngine.Quote quote = engine.quote(User.Tier.GOLD, List.of(new PricingEngine.CartLine(novel, 1)));
+
+        // 9.99 - 0.49 = 9.50, then 15% of it is 1.425, of which 1.42 comes off
+        assertThat(quote.total()).isEqualTo(Money.of("8.08"));
+        assertThat(quote.discount()).isEqualTo(Money.of("1.91"));
+        assertThat(quote.lines().get(0).promotions()).containsExactly("Everything 5% off", "Gold");
+    }
+
+    @Test
+    void rejectsQuantitiesTooLargeToCountInCents() {
+        Book atlas = book(3L, "Reference", "9999999999.99");
+
+        assertThatThrownBy(() -> engine.quote(User.Tier.STANDARD, List.of(
+                new PricingEngine.CartLine(atlas, Integer.MAX_VALUE))))
+                .isInstanceOf(InvalidQuantityException.class);
+    }
+
+    @Test
+    void rejectsIncompleteRules() {
+        assertThatThrownBy(() -> engine.load(List.of(
+                rule("No tier", PromotionRule.Type.TIER_DISCOUNT, null, null, 10, null, null)), 8))
+                .isInstanceOf(InvalidPromotionRuleException.class);
+        assertThat(engine.version()).isEqualTo(7);
+    }
+
+    private static PromotionRule rule(String name, PromotionRule.Type type, String genre, User.Tier tier,
+                                      Integer percentOff, Integer buy, Integer free) {
+        PromotionRule rule = new PromotionRule();
+        rule.setName(name);
+        rule.setType(type);
+        rule.setGenre(genre);
+        rule.setTier(tier);
+        rule.setPercentOff(percentOff);
+        rule.setBuyQuantity(buy);
+        rule.setFreeQuantity(free);
+        return rule;
+    }
+
+    private static Book book(Long id, String genre, String price) {
+        Book book = new Book();
+        book.setId(id);
+        book.setGenre(genre);
+        book.setPrice(Money.of(price));
+        return book;
+    }
+}
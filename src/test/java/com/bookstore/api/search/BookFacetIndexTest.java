@@ -0,0 +1,85 @@
+package com.bookstore.api.search;
+
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookFacetIndexTest {
+
+    private BookFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookFacetIndex(null, new BigDecimal[]{BigDecimal.valueOf(10), BigDecimal.valueOf(20)});
+        index.index(book(1L, "Dune", "Frank Herbert", "Sci-Fi", "9.99", 5));
+        index.index(book(2L, "Emma", "Jane Austen", "Classics", "12.50", 0));
+        index.index(book(3L, "Hyperion", "Dan Simmons", "Sci-Fi", "18.00", 2));
+        index.index(book(4L, "Persuasion", "Jane Austen", "Classics", "25.00", 1));
+    }
+
+    @Test
+    void countsEachFacetWithoutItsOwnFilter() {
+        BookFacetIndex.Result result = index.query(
+                new BookFacetIndex.Filter(List.of("Sci-Fi"), null, null, null, true), 0, 10);
+
+        assertThat(result.ids()).containsExactly(1L, 3L);
+        assertThat(result.total()).isEqualTo(2);
+        // Genre counts ignore the genre filter but keep the stock filter, so Emma is not counted
+        assertThat(result.facets().genres()).containsExactly(
+                Map.entry("Sci-Fi", 2L), Map.entry("Classics", 1L));
+        assertThat(result.facets().prices()).extracting(BookFacetIndex.PriceRange::count).containsExactly(1L, 1L, 0L);
+        assertThat(result.facets().inStock()).isEqualTo(2);
+        assertThat(result.facets().outOfStock()).isZero();
+    }
+
+    @Test
+    void filtersByAuthorAndInclusivePriceRange() {
+        BookFacetIndex.Result result = index.query(
+                new BookFacetIndex.Filter(null, " jane austen", Money.of("12.50"), Money.of("25.00"), false), 0, 10);
+
+        assertThat(result.ids()).containsExactly(2L, 4L);
+        BookFacetIndex.Filter filter = new BookFacetIndex.Filter(null, null, Money.of("10.00"), Money.of("19.00"), false);
+        assertThat(index.query(filter, 0, 10).ids()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void pagesByTitleAndDropsRemovedBooks() {
+        index.index(book(3L, "Endymion", "Dan Simmons", "Sci-Fi", "18.00", 0));
+        index.remove(2L);
+
+        BookFacetIndex.Result page = index.query(new BookFacetIndex.Filter(null, null, null, null, false), 1, 2);
+
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.ids()).containsExactly(3L, 4L);
+        assertThat(page.facets().genres()).containsEntry("Classics", 1L);
+        assertThat(page.facets().outOfStock()).isEqualTo(1);
+    }
+
+    @Test
+    void deepPagesAreEmptyWithoutSizingAHeapForThem() {
+        BookFacetIndex.Filter all = new BookFacetIndex.Filter(null, null, null, null, false);
+
+        assertThat(index.query(all, 3, Integer.MAX_VALUE).ids()).containsExactly(4L);
+        BookFacetIndex.Result beyond = index.query(all, (long) Integer.MAX_VALUE * 100, 100);
+        assertThat(beyond.ids()).isEmpty();
+        assertThat(beyond.total()).isEqualTo(4);
+    }
+
+    private Book book(Long id, String title, String author, String genre, String price, int stock) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setGenre(genre);
+        book.setPrice(Money.of(price));
+        book.setStockQuantity(stock);
+        return book;
+    }
+}
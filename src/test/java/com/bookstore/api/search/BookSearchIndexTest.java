@@ -0,0 +1,68 @@
+package com.bookstore.api.search;
+
+import com.bookstore.api.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex(null);
+        index.index(book(1L, "Dune", "Frank Herbert", "978-0-441-17271-9"));
+        index.index(book(2L, "Dune Messiah", "Frank Herbert", "978-0-441-17269-6"));
+        index.index(book(3L, "Children of Dune", "Frank Herbert", "978-0-441-10402-4"));
+        index.index(book(4L, "Le Petit Café", "Anaïs Dunlop", "123-4"));
+    }
+
+    @Test
+    void matchesTokenPrefixesAcrossFields() {
+        assertThat(index.search("frank dun", 0, 10).ids()).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.search("herb", 0, 10).total()).isEqualTo(3);
+    }
+
+    @Test
+    void ranksExactTitleMatchesAboveAuthorPrefixes() {
+        // "dune" is an exact title token for 1-3 but only an author prefix ("dunlop") for 4
+        assertThat(index.search("dune", 0, 10).ids()).containsExactly(3L, 1L, 2L);
+        assertThat(index.search("dun", 0, 10).ids()).containsExactly(3L, 1L, 2L, 4L);
+    }
+
+    @Test
+    void ignoresCaseAccentsAndIsbnSeparators() {
+        assertThat(index.search("CAFE anais", 0, 10).ids()).containsExactly(4L);
+        assertThat(index.search("9780441172719", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("978-0-441-1726", 0, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void pagesThroughRankedResults() {
+        BookSearchIndex.SearchResult page = index.search("frank", 1, 1);
+
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.ids()).containsExactly(1L);
+    }
+
+    @Test
+    void reindexAndRemoveReplacePreviousTerms() {
+        index.index(book(2L, "Heretics of Dune", "Frank Herbert", "978-0-441-17269-6"));
+        index.remove(3L);
+
+        assertThat(index.search("messiah", 0, 10).ids()).isEmpty();
+        assertThat(index.search("heretics", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("children", 0, 10).total()).isZero();
+    }
+
+    private Book book(Long id, String title, String author, String isbn) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        return book;
+    }
+}
@@ -0,0 +1,90 @@
+package com.bookstore.api.security;
+
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.UserRepository;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthenticatedTokenCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthenticatedTokenCache tokenCache;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestData testData;
+
+    private User customer;
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        testData.reset();
+        customer = testData.customer("token@example.com");
+        token = tokenProvider.generateToken(customer.getEmail());
+
+        mockMvc.perform(get("/api/orders/my-orders").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        assertThat(tokenCache.get(token)).isNotNull();
+    }
+
+    @Test
+    void roleChangeDropsTheCachedToken() throws Exception {
+        User user = userRepository.findById(customer.getId()).orElseThrow();
+        user.setRole(User.Role.ADMIN);
+        userRepository.save(user);
+
+        assertThat(tokenCache.get(token)).isNull();
+        mockMvc.perform(get("/api/orders").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/orders/my-orders").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void deletingTheUserDropsTheCachedToken() throws Exception {
+        userRepository.deleteById(customer.getId());
+
+        assertThat(tokenCache.get(token)).isNull();
+        mockMvc.perform(get("/api/orders/my-orders").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void expiredTokensAreNeverServed() throws Exception {
+        AuthenticatedTokenCache cache = new AuthenticatedTokenCache(100, 300);
+        UserDetails details = tokenCache.get(token);
+
+        cache.put("expired", details, new Date(System.currentTimeMillis() - 1000));
+        cache.put("expiring", details, new Date(System.currentTimeMillis() + 200));
+
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.get("expiring")).isNotNull();
+        Thread.sleep(400);
+        assertThat(cache.get("expiring")).isNull();
+    }
+}
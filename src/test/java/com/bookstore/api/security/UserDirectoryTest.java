@@ -0,0 +1,77 @@
+package com.bookstore.api.security;
+
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserDirectoryTest {
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // The test framework binds a mock request; each lookup here should act like a request of its own
+        RequestContextHolder.resetRequestAttributes();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User saved = new User();
+        saved.setName("Customer");
+        saved.setEmail("customer@example.com");
+        saved.setPassword("secret");
+        saved.setRole(User.Role.CUSTOMER);
+        user = userRepository.save(saved);
+    }
+
+    @Test
+    void resolvesAUserFromTheDatabaseOnce() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(userDirectory.require("customer@example.com").id()).isEqualTo(user.getId());
+        }
+        assertThat(userDirectory.find("nobody@example.com")).isEmpty();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void seesChangesMadeThroughTheRepository() {
+        assertThat(userDirectory.require("customer@example.com").role()).isEqualTo(User.Role.CUSTOMER);
+
+        user.setRole(User.Role.ADMIN);
+        user = userRepository.save(user);
+        assertThat(userDirectory.require("customer@example.com").role()).isEqualTo(User.Role.ADMIN);
+
+        user.setEmail("renamed@example.com");
+        userRepository.save(user);
+        assertThat(userDirectory.find("customer@example.com")).isEmpty();
+        assertThat(userDirectory.require("renamed@example.com").id()).isEqualTo(user.getId());
+    }
+}
@@ -0,0 +1,158 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.dto.BulkImportError;
+import com.bookstore.api.dto.BulkImportResult;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Batches of two, so a handful of rows already spans several batches and export pages
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:imports;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.books.import.batch-size=2",
+        "app.books.import.max-reported-errors=2"
+})
+@ActiveProfiles("test")
+class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService importService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @BeforeEach
+    void setUp() {
+        testData.reset();
+    }
+
+    @Test
+    void csvFieldsMayBeQuotedAndSpanLines() throws Exception {
+        BulkImportResult result = importCsv("""
+                ISBN,Title,author,genre,price,stockQuantity,description
+                csv-1,"Guns, Germs, and Steel",Jared Diamond,History,18.50,3,"The ""fates""
+                of human societies"
+                csv-2,Plain,Author,Fiction,9.99,1,
+                """);
+
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getFailed()).isZero();
+        Book quoted = stored("csv-1").orElseThrow();
+        assertThat(quoted.getTitle()).isEqualTo("Guns, Germs, and Steel");
+        assertThat(quoted.getDescription()).isEqualTo("The \"fates\"\nof human societies");
+        assertThat(quoted.getPrice().toBigDecimal()).isEqualByComparingTo("18.50");
+        assertThat(stored("csv-2").orElseThrow().getDescription()).isNull();
+    }
+
+    @Test
+    void upsertsByIsbnAndLetTheLastRowForAnIsbnInABatchWin() throws Exception {
+        testData.book("Old title", "Fiction", "up-1", "10.00", 1);
+
+        BulkImportResult result = importNdjson("""
+                {"title":"First","author":"A","genre":"Fiction","isbn":"up-2","price":5.00,"stockQuantity":1}
+                {"title":"Second","author":"A","genre":"Fiction","isbn":"up-2","price":6.00,"stockQuantity":2}
+                {"title":"New title","author":"A","genre":"Fiction","isbn":"up-1","price":12.00,"stockQuantity":4}
+                """);
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(BulkImportError::getMessage).containsExactly("Replaced by row 2");
+        Book updated = stored("up-1").orElseThrow();
+        assertThat(updated.getTitle()).isEqualTo("New title");
+        assertThat(updated.getStockQuantity()).isEqualTo(4);
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(stored("up-2").orElseThrow().getTitle()).isEqualTo("Second");
+    }
+
+    @Test
+    void aRowTheDatabaseRejectsFailsAloneAfterItsBatchIsRetriedRowByRow() throws Exception {
+        String tooLong = "x".repeat(300);
+
+        BulkImportResult result = importNdjson("""
+                {"title":"Kept","author":"A","genre":"Fiction","isbn":"db-1","price":5.00,"stockQuantity":1}
+                {"title":"Rejected","author":"A","genre":"Fiction","isbn":"db-2","price":5.00,"stockQuantity":1,"imageUrl":"%s"}
+                """.formatted(tooLong));
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(2);
+            assertThat(error.getIsbn()).isEqualTo("db-2");
+        });
+        assertThat(stored("db-1")).isPresent();
+        assertThat(stored("db-2")).isEmpty();
+    }
+
+    @Test
+    void reportsUnreadableAndInvalidRowsUpToTheLimit() throws Exception {
+        BulkImportResult result = importCsv("""
+                title,author,genre,isbn,price,stockQuantity
+                ,Author,Fiction,bad-1,5.00,1
+                Title,Author,Fiction,bad-2,not-a-price,1
+                Title,Author,Fiction,bad-3,5.00,0
+                Title,Author,Fiction,good-1,5.00,1
+                """);
+
+        assertThat(result.getProcessed()).isEqualTo(4);
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.isErrorsTruncated()).isTrue();
+        assertThat(result.getErrors()).extracting(BulkImportError::getRow).containsExactly(1L, 2L);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("title: Title is required");
+        assertThat(result.getErrors().get(1).getMessage()).startsWith("Unreadable row");
+    }
+
+    @Test
+    void exportPagesThroughEveryBookAndImportsBackUnchanged() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            testData.book("Export, part " + i, "Fiction", "exp-" + i, "10.00", i);
+        }
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        importService.exportBooks(ndjson, BookImportService.Format.NDJSON);
+        assertThat(ndjson.toString(StandardCharsets.UTF_8).lines())
+                .hasSize(5)
+                .allMatch(line -> line.contains("\"isbn\":\"exp-"));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        importService.exportBooks(csv, BookImportService.Format.CSV);
+        BulkImportResult result = importCsv(csv.toString(StandardCharsets.UTF_8));
+
+        assertThat(result.getUpdated()).isEqualTo(5);
+        assertThat(result.getFailed()).isZero();
+        Book book = stored("exp-3").orElseThrow();
+        assertThat(book.getTitle()).isEqualTo("Export, part 3");
+        assertThat(book.getPrice().toBigDecimal()).isEqualByComparingTo(new BigDecimal("10.00"));
+        assertThat(book.getStockQuantity()).isEqualTo(3);
+    }
+
+    private Optional<Book> stored(String isbn) {
+        return bookRepository.findByIsbnIn(List.of(isbn)).stream().findFirst();
+    }
+
+    private BulkImportResult importCsv(String csv) throws Exception {
+        return importService.importBooks(new BufferedReader(new StringReader(csv)), BookImportService.Format.CSV);
+    }
+
+    private BulkImportResult importNdjson(String ndjson) throws Exception {
+        return importService.importBooks(new BufferedReader(new StringReader(ndjson)), BookImportService.Format.NDJSON);
+    }
+}
@@ -0,0 +1,111 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.dto.BulkStatusUpdateResult;
+import com.bookstore.api.dto.StatusUpdate;
+import com.bookstore.api.dto.StatusUpdateOutcome;
+import com.bookstore.api.exception.IllegalStatusTransitionException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static com.bookstore.api.support.TestData.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkOrderStatusServiceTest {
+
+    @Autowired
+    private BulkOrderStatusService bulkStatusService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestData testData;
+
+    private User customer;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        testData.reset();
+        customer = testData.customer("bulk-status@example.com");
+        book = testData.book("isbn-bulk", 10);
+    }
+
+    @Test
+    void appliesLegalChangesAndReportsTheRest() {
+        Long shipped = placeOrder(1);
+        Long cancelled = placeOrder(2);
+        Long delivered = placeOrder(3);
+
+        BulkStatusUpdateResult result = bulkStatusService.apply(List.of(
+                update(shipped, "shipped"),
+                update(cancelled, "CANCELLED"),
+                update(delivered, "DELIVERED"),
+                update(shipped, "CANCELLED"),
+                update(-1L, "SHIPPED"),
+                update(cancelled, "LOST")));
+
+        assertThat(result.getResults()).extracting(StatusUpdateOutcome::getId, StatusUpdateOutcome::getResult,
+                StatusUpdateOutcome::getStatus).containsExactly(
+                tuple(shipped, StatusUpdateOutcome.Result.UPDATED, "SHIPPED"),
+                tuple(cancelled, StatusUpdateOutcome.Result.UPDATED, "CANCELLED"),
+                tuple(delivered, StatusUpdateOutcome.Result.ILLEGAL_TRANSITION, "PENDING"),
+                tuple(shipped, StatusUpdateOutcome.Result.ILLEGAL_TRANSITION, "SHIPPED"),
+                tuple(-1L, StatusUpdateOutcome.Result.NOT_FOUND, null),
+                tuple(cancelled, StatusUpdateOutcome.Result.UNKNOWN_STATUS, null));
+        assertThat(result.getUpdated()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(4);
+
+        assertThat(orderRepository.findById(shipped).orElseThrow().getStatus()).isEqualTo(Order.OrderStatus.SHIPPED);
+        assertThat(orderRepository.findById(delivered).orElseThrow().getStatus()).isEqualTo(Order.OrderStatus.PENDING);
+        // 10 - 1 - 2 - 3, plus the 2 from the cancelled order
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getStockQuantity()).isEqualTo(6);
+    }
+
+    @Test
+    void appliesSeveralChangesToOneOrderInRequestOrder() {
+        Long order = placeOrder(1);
+
+        BulkStatusUpdateResult result = bulkStatusService.apply(List.of(
+                update(order, "SHIPPED"), update(order, "DELIVERED"), update(order, "DELIVERED")));
+
+        assertThat(result.getResults()).extracting(StatusUpdateOutcome::getResult).containsExactly(
+                StatusUpdateOutcome.Result.UPDATED, StatusUpdateOutcome.Result.UPDATED,
+                StatusUpdateOutcome.Result.UNCHANGED);
+        assertThat(orderRepository.findById(order).orElseThrow().getStatus()).isEqualTo(Order.OrderStatus.DELIVERED);
+        assertThatThrownBy(() -> orderService.updateStatus(order, Order.OrderStatus.CANCELLED))
+                .isInstanceOf(IllegalStatusTransitionException.class);
+    }
+
+    private Long placeOrder(int quantity) {
+        return orderService.placeOrder(customer, List.of(item(book, quantity))).getId();
+    }
+
+    private StatusUpdate update(Long id, String status) {
+        StatusUpdate update = new StatusUpdate();
+        update.setId(id);
+        update.setStatus(status);
+        return update;
+    }
+}
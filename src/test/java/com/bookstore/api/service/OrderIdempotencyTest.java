@@ -0,0 +1,102 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.exception.IdempotencyKeyReusedException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.OrderIdempotencyKeyRepository;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.bookstore.api.support.TestData.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderIdempotencyTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private TestData testData;
+
+    private User customer;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyKeyRepository.deleteAll();
+        testData.reset();
+        customer = testData.customer("customer@example.com");
+        book = testData.book("isbn-1", 100);
+    }
+
+    @Test
+    void concurrentDuplicatesPlaceOneOrder() throws Exception {
+        int retries = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(retries);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < retries; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return orderService.placeOrder(customer, List.of(item(book, 2)), "key-1").getId();
+            }));
+        }
+        start.countDown();
+
+        Set<Long> orderIds = new HashSet<>();
+        for (Future<Long> result : results) {
+            orderIds.add(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertThat(orderIds).hasSize(1);
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getStockQuantity()).isEqualTo(98);
+    }
+
+    @Test
+    void replaysAfterTheFirstSubmissionCompleted() {
+        Long first = orderService.placeOrder(customer, List.of(item(book, 1)), "key-1").getId();
+
+        assertThat(orderService.placeOrder(customer, List.of(item(book, 1)), "key-1").getId()).isEqualTo(first);
+        assertThat(orderService.placeOrder(customer, List.of(item(book, 1)), "key-2").getId()).isNotEqualTo(first);
+        assertThat(orderRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void refusesAKeyReusedForDifferentItems() {
+        orderService.placeOrder(customer, List.of(item(book, 1)), "key-1");
+
+        assertThatThrownBy(() -> orderService.placeOrder(customer, List.of(item(book, 3)), "key-1"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+}
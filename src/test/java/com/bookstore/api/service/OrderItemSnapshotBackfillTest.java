@@ -0,0 +1,79 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.User;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.bookstore.api.support.TestData.item;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.orders.snapshot-backfill.batch-size=2")
+@ActiveProfiles("test")
+class OrderItemSnapshotBackfillTest {
+
+    @Autowired
+    private OrderItemSnapshotBackfill backfill;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        testData.reset();
+        customer = testData.customer("customer@example.com");
+    }
+
+    @Test
+    void placedOrdersKeepThePricePaid() {
+        Book book = testData.book("isbn-1", 100);
+        Order order = orderService.placeOrder(customer, List.of(item(book, 2)));
+
+        jdbcTemplate.update("update books set price = 25.0 where id = ?", book.getId());
+
+        Map<String, Object> line = jdbcTemplate.queryForMap(
+                "select book_title, book_isbn, unit_price from order_items where order_id = ?", order.getId());
+        assertThat(line.get("book_title")).isEqualTo("Title isbn-1");
+        assertThat(line.get("book_isbn")).isEqualTo("isbn-1");
+        assertThat(((Number) line.get("unit_price")).doubleValue()).isEqualTo(10.0);
+    }
+
+    @Test
+    void backfillsLinesWithoutASnapshotInBatches() {
+        Book first = testData.book("isbn-1", 100);
+        Book second = testData.book("isbn-2", 100);
+        for (int i = 0; i < 3; i++) {
+            orderService.placeOrder(customer, List.of(item(first, 1), item(second, 3)));
+        }
+        // Lines as they were stored before order items carried a snapshot
+        jdbcTemplate.update("update order_items set book_title = null, book_isbn = null, unit_price = null");
+        jdbcTemplate.update("update books set price = 99.0 where id = ?", first.getId());
+
+        assertThat(backfill.backfill()).isEqualTo(6);
+        assertThat(backfill.backfill()).isZero();
+
+        List<Map<String, Object>> lines = jdbcTemplate.queryForList(
+                "select book_isbn, unit_price from order_items where book_id = ?", first.getId());
+        assertThat(lines).hasSize(3).allSatisfy(line -> {
+            assertThat(line.get("book_isbn")).isEqualTo("isbn-1");
+            assertThat(((Number) line.get("unit_price")).doubleValue()).isEqualTo(10.0);
+        });
+    }
+}
@@ -0,0 +1,209 @@
+package com.bookstore.api.service;
+
+import com.bookstore.api.exception.InsufficientStockException;
+import com.bookstore.api.exception.InvalidAmountException;
+import com.bookstore.api.exception.InvalidQuantityException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.PromotionRule;
+import com.bookstore.api.model.User;
+import com.bookstore.api.pricing.PricingEngine;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.repository.UserRepository;
+import com.bookstore.api.support.TestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.bookstore.api.support.TestData.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        testData.reset();
+        customer = testData.customer("customer@example.com");
+    }
+
+    @Test
+    void concurrentOrdersNeverOversell() throws Exception {
+        Book book = testData.book("isbn-hot", 5);
+        int buyers = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < buyers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.placeOrder(customer, List.of(item(book, 1)));
+                    return true;
+                } catch (InsufficientStockException ex) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int placed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                placed++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(placed).isEqualTo(5);
+        assertThat(orderRepository.count()).isEqualTo(5);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getStockQuantity()).isZero();
+    }
+
+    @Test
+    void placesOrderWithOneBookQueryAndOneUpdatePerBook() {
+        Book first = testData.book("isbn-1", 10);
+        Book second = testData.book("isbn-2", 10);
+        Book third = testData.book("isbn-3", 10);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Order order = orderService.placeOrder(customer, List.of(
+                item(first, 1), item(second, 2), item(third, 3)));
+
+        // 1 select for all books, 3 conditional updates, 1 order insert, 3 item inserts and 1 outbox insert
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(9);
+        assertThat(order.getTotalAmount()).isEqualTo(Money.of("60.00"));
+        assertThat(bookRepository.findById(third.getId()).orElseThrow().getStockQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void rollsBackEarlierLinesWhenOneBookIsShort() {
+        Book plenty = testData.book("isbn-plenty", 10);
+        Book scarce = testData.book("isbn-scarce", 1);
+
+        assertThatThrownBy(() -> orderService.placeOrder(customer, List.of(
+                item(plenty, 3), item(scarce, 2))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(bookRepository.findById(plenty.getId()).orElseThrow().getStockQuantity()).isEqualTo(10);
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void rejectsLinesWhoseQuantitiesOverflowWhenAddedUp() {
+        Book book = testData.book("Cheap", "Fiction", "isbn-cheap", "0.01", 5);
+
+        assertThatThrownBy(() -> orderService.placeOrder(customer, List.of(
+                item(book, Integer.MAX_VALUE), item(book, Integer.MAX_VALUE))))
+                .isInstanceOf(InvalidQuantityException.class);
+
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getStockQuantity()).isEqualTo(5);
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void storesLineTotalsWiderThanAUnitPrice() {
+        Book expensive = testData.book("Expensive", "Fiction", "isbn-expensive", "9999999999.99", 20000);
+
+        Order order = orderService.placeOrder(customer, List.of(item(expensive, 100)));
+
+        assertThat(jdbcTemplate.queryForObject("select price from order_items where order_id = ?", BigDecimal.class,
+                order.getId())).isEqualByComparingTo("999999999999.00");
+        // 10000 copies would need 15 whole digits
+        assertThatThrownBy(() -> orderService.placeOrder(customer, List.of(item(expensive, 10000))))
+                .isInstanceOf(InvalidAmountException.class);
+        assertThat(bookRepository.findById(expensive.getId()).orElseThrow().getStockQuantity()).isEqualTo(19900);
+    }
+
+    @Test
+    void cancellingReturnsStockOnce() {
+        Book book = testData.book("isbn-cancel", 5);
+        Order order = orderService.placeOrder(customer, List.of(item(book, 3)));
+
+        orderService.updateStatus(order.getId(), Order.OrderStatus.CANCELLED);
+        orderService.updateStatus(order.getId(), Order.OrderStatus.CANCELLED);
+
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getStockQuantity()).isEqualTo(5);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus())
+                .isEqualTo(Order.OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void placesOrdersAtTheQuotedPrice() {
+        Book book = testData.book("isbn-promo", 10);
+        customer.setTier(User.Tier.GOLD);
+        customer = userRepository.save(customer);
+        PromotionRule deal = new PromotionRule();
+        deal.setName("3 for 2");
+        deal.setType(PromotionRule.Type.BUY_X_GET_Y);
+        deal.setGenre("Fiction");
+        deal.setBuyQuantity(2);
+        deal.setFreeQuantity(1);
+        PromotionRule gold = new PromotionRule();
+        gold.setName("Gold");
+        gold.setType(PromotionRule.Type.TIER_DISCOUNT);
+        gold.setTier(User.Tier.GOLD);
+        gold.setPercentOff(5);
+        pricingEngine.replaceRules(List.of(deal, gold));
+        try {
+            PricingEngine.Quote quote = orderService.quote(User.Tier.GOLD, List.of(item(book, 3)));
+            Order order = orderService.placeOrder(customer, List.of(item(book, 3)));
+
+            // One of three copies free, then 5% off the remaining 20.00
+            assertThat(quote.total()).isEqualTo(Money.of("19.00"));
+            assertThat(order.getTotalAmount()).isEqualTo(quote.total());
+            assertThat(order.getOrderItems().get(0).getUnitPrice()).isEqualTo(Money.of("10.00"));
+            assertThat(order.getOrderItems().get(0).getPrice()).isEqualTo(Money.of("19.00"));
+        } finally {
+            pricingEngine.replaceRules(List.of());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bookstore.api.startup;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies the migrations to an empty database and has Hibernate validate the entities against
+ * the result, so an entity change without a matching migration fails here.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false"
+})
+@ActiveProfiles("test")
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Test
+    void migrationsMatchTheEntities() {
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("6");
+    }
+
+    @Test
+    void upgradesADatabaseAtTheBaseline() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baselined;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        // A database as the last release before migrations left it, with an order already placed
+        Flyway.configure().dataSource(dataSource).target(MigrationVersion.fromVersion("1")).load().migrate();
+        jdbc.update("insert into users (id, email, name, password, role) values (1, 'a@example.com', 'A', 'x', 'CUSTOMER')");
+        jdbc.update("insert into books (id, title, author, genre, isbn, price, stock_quantity) "
+                + "values (1, 'Title', 'Author', 'Fiction', 'isbn-1', 9.99, 3)");
+        jdbc.update("insert into orders (id, user_id, status, total_amount) values (1, 1, 'PENDING', 19.98)");
+        jdbc.update("insert into order_items (id, order_id, book_id, quantity, price) values (1, 1, 1, 2, 19.98)");
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        Map<String, Object> book = jdbc.queryForMap("select version, price from books where id = 1");
+        assertThat(book.get("version")).isEqualTo(0L);
+        assertThat(book.get("price")).isEqualTo(new BigDecimal("9.99"));
+        assertThat(jdbc.queryForObject("select tier from users where id = 1", String.class)).isEqualTo("STANDARD");
+        // Left for OrderItemSnapshotBackfill
+        assertThat(jdbc.queryForObject("select unit_price from order_items where id = 1", BigDecimal.class)).isNull();
+        assertThat(jdbc.queryForObject("select count(*) from order_outbox", Integer.class)).isZero();
+    }
+}
@@ -0,0 +1,222 @@
+package com.bookstore.api.stock;
+
+import com.bookstore.api.exception.InsufficientStockException;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Order;
+import com.bookstore.api.model.StockJournalEntry;
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.StockJournalRepository;
+import com.bookstore.api.service.OrderService;
+import com.bookstore.api.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.bookstore.api.support.TestData.item;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The flush interval is long enough that only the explicit flush() calls below write to the books table
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:write-behind;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.stock.write-behind.enabled=true",
+        "app.stock.write-behind.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class StockReservationEngineTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StockReservationEngine stockEngine;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StockJournalRepository journalRepository;
+
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        journalRepository.deleteAll();
+        testData.reset();
+        customer = testData.customer("customer@example.com");
+    }
+
+    @Test
+    void concurrentOrdersNeverOversellAndFlushAppliesNetDelta() throws Exception {
+        Book book = testData.book("isbn-hot", 5);
+        int buyers = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < buyers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.placeOrder(customer, List.of(item(book, 1)));
+                    return true;
+                } catch (InsufficientStockException ex) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int placed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                placed++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(placed).isEqualTo(5);
+        // Nothing reaches the books row until the journal is flushed
+        assertThat(stockOf(book)).isEqualTo(5);
+        assertThat(journalRepository.count()).isEqualTo(5);
+
+        stockEngine.flush();
+
+        assertThat(stockOf(book)).isZero();
+        assertThat(journalRepository.count()).isZero();
+    }
+
+    @Test
+    void editsDuringConcurrentOrdersKeepTheirReservations() throws Exception {
+        Book book = testData.book("isbn-edited", 5);
+        int buyers = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < buyers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.placeOrder(customer, List.of(item(book, 1)));
+                    return true;
+                } catch (InsufficientStockException ex) {
+                    return false;
+                }
+            }));
+        }
+        // Renames the book while orders are placed; stock stays as stored, so nothing is added
+        Future<?> edits = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < 5; i++) {
+                edit(book, "Renamed " + i, 5);
+            }
+            return null;
+        });
+        start.countDown();
+
+        int placed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                placed++;
+            }
+        }
+        edits.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(placed).isEqualTo(5);
+        stockEngine.flush();
+        assertThat(stockOf(book)).isZero();
+    }
+
+    @Test
+    void stockEditMovesTheCounterByTheDifference() throws Exception {
+        Book book = testData.book("isbn-restocked", 5);
+        orderService.placeOrder(customer, List.of(item(book, 2)));
+
+        // Stored stock is still 5 before the flush, so setting 8 adds 3 to the 3 left
+        edit(book, book.getTitle(), 8);
+
+        orderService.placeOrder(customer, List.of(item(book, 6)));
+        assertThatThrownBy(() -> orderService.placeOrder(customer, List.of(item(book, 1))))
+                .isInstanceOf(InsufficientStockException.class);
+        stockEngine.flush();
+        assertThat(stockOf(book)).isZero();
+    }
+
+    @Test
+    void failedOrderGivesReservedStockBack() {
+        Book plenty = testData.book("isbn-plenty", 10);
+        Book scarce = testData.book("isbn-scarce", 1);
+
+        assertThatThrownBy(() -> orderService.placeOrder(customer, List.of(
+                item(plenty, 3), item(scarce, 2))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(journalRepository.count()).isZero();
+        orderService.placeOrder(customer, List.of(item(plenty, 10)));
+    }
+
+    @Test
+    void cancellingReleasesStockOnce() {
+        Book book = testData.book("isbn-cancel", 2);
+        Order order = orderService.placeOrder(customer, List.of(item(book, 2)));
+
+        orderService.updateStatus(order.getId(), Order.OrderStatus.CANCELLED);
+        orderService.updateStatus(order.getId(), Order.OrderStatus.CANCELLED);
+        stockEngine.flush();
+
+        assertThat(stockOf(book)).isEqualTo(2);
+        orderService.placeOrder(customer, List.of(item(book, 2)));
+    }
+
+    @Test
+    void reconcileAppliesJournalLeftByPreviousRun() {
+        Book book = testData.book("isbn-crash", 10);
+        journalRepository.save(new StockJournalEntry(book.getId(), -4));
+
+        stockEngine.reconcile();
+
+        assertThat(stockOf(book)).isEqualTo(6);
+        assertThat(journalRepository.count()).isZero();
+    }
+
+    private void edit(Book book, String title, int stock) throws Exception {
+        mockMvc.perform(put("/api/books/{id}", book.getId())
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "%s", "author": "Author", "genre": "Fiction", "isbn": "%s",
+                                 "price": 10.00, "stockQuantity": %d}
+                                """.formatted(title, book.getIsbn(), stock)))
+                .andExpect(status().isOk());
+    }
+
+    private int stockOf(Book book) {
+        return bookRepository.findById(book.getId()).orElseThrow().getStockQuantity();
+    }
+}
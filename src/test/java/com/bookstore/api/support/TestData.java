@@ -0,0 +1,67 @@
+package com.bookstore.api.support;
+
+import com.bookstore.api.dto.OrderItemRequest;
+import com.bookstore.api.model.Book;
+import com.bookstore.api.model.Money;
+import com.bookstore.api.model.User;
+import com.bookstore.api.repository.BookRepository;
+import com.bookstore.api.repository.OrderRepository;
+import com.bookstore.api.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Customers, books and order lines for the integration tests. A plain component rather than a
+ * test configuration, so every test context picks it up and importing it never splits the context cache.
+ */
+@Component
+public class TestData {
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final OrderRepository orderRepository;
+
+    public TestData(UserRepository userRepository, BookRepository bookRepository, OrderRepository orderRepository) {
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    /** Deletes orders, books and users; tables referencing them have to be cleared first. */
+    public void reset() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    public User customer(String email) {
+        User user = new User();
+        user.setName("Customer");
+        user.setEmail(email);
+        user.setPassword("secret");
+        user.setRole(User.Role.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    /** A Fiction book titled after its ISBN and priced at 10.00. */
+    public Book book(String isbn, int stock) {
+        return book("Title " + isbn, "Fiction", isbn, "10.00", stock);
+    }
+
+    public Book book(String title, String genre, String isbn, String price, int stock) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Author");
+        book.setGenre(genre);
+        book.setIsbn(isbn);
+        book.setPrice(Money.of(price));
+        book.setStockQuantity(stock);
+        return bookRepository.save(book);
+    }
+
+    public static OrderItemRequest item(Book book, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setBookId(book.getId());
+        item.setQuantity(quantity);
+        return item;
+    }
+}